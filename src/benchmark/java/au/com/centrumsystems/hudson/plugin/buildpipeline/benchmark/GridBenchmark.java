@@ -0,0 +1,149 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline.benchmark;
+
+import hudson.model.AbstractProject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import au.com.centrumsystems.hudson.plugin.buildpipeline.BuildForm;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.BuildGrid;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.BuildJSONBuilder;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.BuildPipelineView;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.DownstreamProjectGridBuilder;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.PipelineBuild;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.ProjectGrid;
+import au.com.centrumsystems.hudson.plugin.util.DownstreamBuildIndex;
+
+/**
+ * Measures laying out a pipeline: building the grids of a {@link SyntheticPipeline}, constructing {@link BuildForm}s and rendering
+ * them as JSON.
+ *
+ * Run with {@code mvn -P benchmark test-compile exec:exec}.
+ *
+ * @author Centrum Systems
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GridBenchmark {
+
+    /** Number of chains triggered by the first project. */
+    @Param({ "1", "5", "20" })
+    private int width;
+
+    /** Number of projects in each chain. */
+    @Param({ "3", "10" })
+    private int depth;
+
+    /** Number of builds of each project. */
+    @Param({ "10", "100" })
+    private int history;
+
+    /** The pipeline. */
+    private SyntheticPipeline pipeline;
+
+    /** Lays out the pipeline from its first project. */
+    private DownstreamProjectGridBuilder gridBuilder;
+
+    /** Newest build of the first project. */
+    private PipelineBuild lastBuild;
+
+    /** Downstream build ids passed to the JSON rendering. */
+    private List<String> dependencyIds;
+
+    /**
+     * Creates the pipeline.
+     */
+    @Setup(Level.Trial)
+    public void createPipeline() {
+        pipeline = new SyntheticPipeline(width, depth, history);
+        gridBuilder = new DownstreamProjectGridBuilder("first") {
+            @Override
+            public AbstractProject<?, ?> getFirstJob(final BuildPipelineView owner) {
+                return pipeline.getFirstProject();
+            }
+        };
+        lastBuild = new PipelineBuild(pipeline.getBuild(pipeline.getFirstProject(), history));
+        dependencyIds = new ArrayList<String>();
+        for (int i = 0; i < width; i++) {
+            dependencyIds.add("chain" + i + "_002d0-" + history + "-" + history + "-" + i + "-1");
+        }
+    }
+
+    /**
+     * Starts every invocation with cold downstream build lookups, as after a restart.
+     */
+    @Setup(Level.Invocation)
+    public void forgetDownstreamBuilds() {
+        for (int i = 1; i <= width * depth; i++) {
+            DownstreamBuildIndex.get().invalidate(pipeline.getProject(i));
+        }
+    }
+
+    /**
+     * Lays out the first page of pipeline instances, as the view does when it is first shown.
+     *
+     * @param blackhole
+     *            sink for the laid out grids
+     */
+    @Benchmark
+    public void buildGrid(final Blackhole blackhole) {
+        final ProjectGrid grid = gridBuilder.build(pipeline.getView());
+        blackhole.consume(grid.getRows());
+        for (final BuildGrid buildGrid : grid.builds(0, 10)) {
+            blackhole.consume(buildGrid.getRows());
+        }
+    }
+
+    /**
+     * Builds the form of the newest pipeline instance, following every downstream build.
+     *
+     * @param blackhole
+     *            sink for the forms
+     */
+    @Benchmark
+    public void buildForm(final Blackhole blackhole) {
+        consume(new BuildForm(new PipelineBuild(pipeline.getBuild(pipeline.getFirstProject(), history))), blackhole);
+    }
+
+    /**
+     * Renders the newest build of the first project as JSON.
+     *
+     * @return the JSON
+     */
+    @Benchmark
+    public String asJSON() {
+        return BuildJSONBuilder.asJSON(lastBuild, "first-" + history + "-" + history + "-0-0", "first", dependencyIds, false);
+    }
+
+    /**
+     * @param form
+     *            a form whose downstream forms are to be built
+     * @param blackhole
+     *            sink for the forms
+     */
+    private static void consume(final BuildForm form, final Blackhole blackhole) {
+        blackhole.consume(form.getStatus());
+        for (final BuildForm dependency : form.getDependencies()) {
+            consume(dependency, blackhole);
+        }
+    }
+}
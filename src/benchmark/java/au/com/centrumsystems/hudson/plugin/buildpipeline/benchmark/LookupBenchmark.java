@@ -0,0 +1,109 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline.benchmark;
+
+import hudson.model.AbstractBuild;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import au.com.centrumsystems.hudson.plugin.util.BuildUtil;
+import au.com.centrumsystems.hudson.plugin.util.DownstreamBuildIndex;
+import au.com.centrumsystems.hudson.plugin.util.ProjectUtil;
+
+/**
+ * Measures the lookups done for every card of a pipeline: whether a downstream project is triggered manually, and which downstream
+ * build an upstream build caused.
+ *
+ * Run with {@code mvn -P benchmark test-compile exec:exec}.
+ *
+ * @author Centrum Systems
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LookupBenchmark {
+
+    /** Number of chains triggered by the first project. */
+    @Param({ "1", "20" })
+    private int width;
+
+    /** Number of builds of each project. */
+    @Param({ "10", "100", "1000" })
+    private int history;
+
+    /** The pipeline, with chains of two projects. */
+    private SyntheticPipeline pipeline;
+
+    /** First project of the last chain, triggered manually by the first project. */
+    private FreeStyleProject manualProject;
+
+    /** Second project of the last chain, triggered automatically. */
+    private FreeStyleProject automaticProject;
+
+    /** Oldest build of the first project of the last chain, the worst case for a history walk. */
+    private FreeStyleBuild oldestUpstreamBuild;
+
+    /**
+     * Creates the pipeline.
+     */
+    @Setup(Level.Trial)
+    public void createPipeline() {
+        pipeline = new SyntheticPipeline(width, 2, history);
+        automaticProject = pipeline.getLastProject();
+        manualProject = pipeline.getProject(pipeline.getProjectCount() - 2);
+        oldestUpstreamBuild = pipeline.getBuild(manualProject, 1);
+    }
+
+    /**
+     * @return whether the first project triggers the first project of the last chain manually
+     */
+    @Benchmark
+    public boolean isManualTrigger() {
+        return ProjectUtil.isManualTrigger(pipeline.getFirstProject(), manualProject);
+    }
+
+    /**
+     * @return whether the first project of the last chain triggers the next one manually
+     */
+    @Benchmark
+    public boolean isAutomaticTrigger() {
+        return ProjectUtil.isManualTrigger(manualProject, automaticProject);
+    }
+
+    /**
+     * Looks up a downstream build whose index has been populated by earlier lookups.
+     *
+     * @return the downstream build
+     */
+    @Benchmark
+    public AbstractBuild<?, ?> getDownstreamBuild() {
+        return BuildUtil.getDownstreamBuild(automaticProject, oldestUpstreamBuild);
+    }
+
+    /**
+     * Looks up a downstream build with an empty index, which walks the whole history of the downstream project.
+     *
+     * @return the downstream build
+     */
+    @Benchmark
+    public AbstractBuild<?, ?> getDownstreamBuildCold() {
+        DownstreamBuildIndex.get().invalidate(automaticProject);
+        return BuildUtil.getDownstreamBuild(automaticProject, oldestUpstreamBuild);
+    }
+}
@@ -0,0 +1,92 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline.benchmark;
+
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.StringParameterValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import au.com.centrumsystems.hudson.plugin.util.BuildUtil;
+
+/**
+ * Measures merging the parameters of a triggered build: the upstream build's parameters, the defaults of the triggered project and
+ * the parameters of each config of the trigger, as a manual trigger does for every build it schedules.
+ *
+ * Run with {@code mvn -P benchmark test-compile exec:exec -Djmh.args=ParameterMergeBenchmark}.
+ *
+ * @author Centrum Systems
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParameterMergeBenchmark {
+
+    /** Number of parameters of each action. */
+    @Param({ "10", "100", "500" })
+    private int parameters;
+
+    /** Number of trigger configs with parameters, on top of the upstream build and the defaults. */
+    @Param({ "0", "1", "3" })
+    private int configs;
+
+    /** Upstream build, defaults, then the configs; half of the names of each action are also in the one before it. */
+    private List<ParametersAction> actions;
+
+    /**
+     * Creates the actions.
+     */
+    @Setup(Level.Trial)
+    public void createActions() {
+        actions = new ArrayList<ParametersAction>();
+        for (int action = 0; action < configs + 2; action++) {
+            final List<ParameterValue> values = new ArrayList<ParameterValue>(parameters);
+            for (int i = 0; i < parameters; i++) {
+                final int name = action * parameters / 2 + i;
+                values.add(new StringParameterValue("param" + name, "value" + action));
+            }
+            actions.add(new ParametersAction(values));
+        }
+    }
+
+    /**
+     * Merges all actions in one pass.
+     *
+     * @return the merged parameters
+     */
+    @Benchmark
+    public ParametersAction mergeOnce() {
+        return BuildUtil.mergeParameters(actions);
+    }
+
+    /**
+     * Merges the actions two at a time, each merge into a new action.
+     *
+     * @return the merged parameters
+     */
+    @Benchmark
+    public ParametersAction mergePairwise() {
+        ParametersAction merged = actions.get(0);
+        for (int i = 1; i < actions.size(); i++) {
+            merged = BuildUtil.mergeParameters(merged, actions.get(i));
+        }
+        return merged;
+    }
+}
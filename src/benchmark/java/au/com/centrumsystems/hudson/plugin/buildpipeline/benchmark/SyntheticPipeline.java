@@ -0,0 +1,276 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline.benchmark;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import hudson.model.AbstractProject;
+import hudson.model.CauseAction;
+import hudson.model.DependencyGraph;
+import hudson.model.Descriptor;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.HealthReport;
+import hudson.model.Hudson;
+import hudson.model.Result;
+import hudson.model.Cause.UpstreamCause;
+import hudson.tasks.Publisher;
+import hudson.util.DescribableList;
+import hudson.util.RunList;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import jenkins.model.Jenkins;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import au.com.centrumsystems.hudson.plugin.buildpipeline.BuildPipelineView;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
+
+/**
+ * In-memory stand-in for a Jenkins instance hosting a pipeline, so that the hot paths of the plugin can be measured without starting
+ * Jenkins or touching the disk.
+ *
+ * The pipeline starts with a single project, which triggers {@code width} chains of {@code depth} projects each. Every project has
+ * {@code history} builds, build n of a downstream project being caused by build n of its upstream project. The first project of every
+ * chain is triggered manually, through a {@link BuildPipelineTrigger}; the others are triggered automatically.
+ *
+ * Projects and builds are Mockito mocks; only the methods the plugin calls are stubbed.
+ *
+ * @author Centrum Systems
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public final class SyntheticPipeline {
+
+    /** The project that starts the pipeline. */
+    private final FreeStyleProject first;
+
+    /** Every project, first one first, then chain by chain. */
+    private final List<FreeStyleProject> projects = new ArrayList<FreeStyleProject>();
+
+    /** project -> its builds, oldest first */
+    private final Map<FreeStyleProject, List<FreeStyleBuild>> builds = new HashMap<FreeStyleProject, List<FreeStyleBuild>>();
+
+    /** project -> its downstream projects */
+    private final Map<AbstractProject, List<AbstractProject>> downstream = new HashMap<AbstractProject, List<AbstractProject>>();
+
+    /** View the pipeline is shown in. */
+    private final BuildPipelineView view;
+
+    /**
+     * Creates the pipeline and installs a stand-in Jenkins whose dependency graph describes it.
+     *
+     * @param width
+     *            number of chains triggered by the first project
+     * @param depth
+     *            number of projects in each chain
+     * @param history
+     *            number of builds of each project
+     */
+    public SyntheticPipeline(final int width, final int depth, final int history) {
+        first = createProject("first", null, history, false);
+        for (int chain = 0; chain < width; chain++) {
+            FreeStyleProject upstream = first;
+            for (int level = 0; level < depth; level++) {
+                upstream = createProject("chain" + chain + "-" + level, upstream, history, level == 0);
+            }
+        }
+
+        final DependencyGraph graph = mock(DependencyGraph.class);
+        when(graph.getDownstream(any(AbstractProject.class))).thenAnswer(new Answer<List<AbstractProject>>() {
+            @Override
+            public List<AbstractProject> answer(final InvocationOnMock invocation) {
+                final List<AbstractProject> projects = downstream.get(invocation.getArguments()[0]);
+                return (projects == null) ? Collections.<AbstractProject>emptyList() : projects;
+            }
+        });
+        final Hudson jenkins = mock(Hudson.class);
+        when(jenkins.getDependencyGraph()).thenReturn(graph);
+        install(jenkins);
+
+        view = mock(BuildPipelineView.class);
+        when(view.getExpandedBuildCards()).thenReturn(Collections.<String>emptySet());
+    }
+
+    /**
+     * @return the project that starts the pipeline
+     */
+    public FreeStyleProject getFirstProject() {
+        return first;
+    }
+
+    /**
+     * @param index
+     *            0 for the first project, then the projects chain by chain
+     * @return the project
+     */
+    public FreeStyleProject getProject(final int index) {
+        return projects.get(index);
+    }
+
+    /**
+     * @return number of projects, including the first one
+     */
+    public int getProjectCount() {
+        return projects.size();
+    }
+
+    /**
+     * @return the last project of the last chain
+     */
+    public FreeStyleProject getLastProject() {
+        return projects.get(projects.size() - 1);
+    }
+
+    /**
+     * @param project
+     *            a project of the pipeline
+     * @param number
+     *            build number, from 1
+     * @return the build
+     */
+    public FreeStyleBuild getBuild(final FreeStyleProject project, final int number) {
+        return builds.get(project).get(number - 1);
+    }
+
+    /**
+     * @return the view the pipeline is shown in
+     */
+    public BuildPipelineView getView() {
+        return view;
+    }
+
+    /**
+     * @param name
+     *            project name
+     * @param upstream
+     *            upstream project, null for the first project
+     * @param history
+     *            number of builds
+     * @param manual
+     *            whether the upstream project triggers the project manually
+     * @return the new project
+     */
+    private FreeStyleProject createProject(final String name, final FreeStyleProject upstream, final int history,
+            final boolean manual) {
+        final FreeStyleProject project = mock(FreeStyleProject.class);
+        when(project.getName()).thenReturn(name);
+        when(project.getFullName()).thenReturn(name);
+        when(project.getUrl()).thenReturn("job/" + name + "/");
+        final HealthReport health = mock(HealthReport.class);
+        when(health.getIconUrl()).thenReturn("health-80plus.gif");
+        when(project.getBuildHealth()).thenReturn(health);
+        when(project.getPublishersList()).thenReturn(new DescribableList<Publisher, Descriptor<Publisher>>(project));
+
+        final List<AbstractProject> upstreamProjects = new ArrayList<AbstractProject>();
+        if (upstream != null) {
+            upstreamProjects.add(upstream);
+            List<AbstractProject> siblings = downstream.get(upstream);
+            if (siblings == null) {
+                siblings = new ArrayList<AbstractProject>();
+                downstream.put(upstream, siblings);
+            }
+            siblings.add(project);
+            if (manual) {
+                upstream.getPublishersList().add(new BuildPipelineTrigger(name, null));
+            }
+        }
+        when(project.getUpstreamProjects()).thenReturn(upstreamProjects);
+
+        builds.put(project, createBuilds(project, upstream, history));
+        projects.add(project);
+        return project;
+    }
+
+    /**
+     * @param project
+     *            the project the builds belong to
+     * @param upstream
+     *            the upstream project whose builds caused them, or null
+     * @param count
+     *            number of builds
+     * @return the builds, oldest first
+     */
+    private List<FreeStyleBuild> createBuilds(final FreeStyleProject project, final FreeStyleProject upstream, final int count) {
+        // read up front: a mock must not be called while another one is being stubbed
+        final String url = project.getUrl();
+        final String upstreamName = (upstream == null) ? null : upstream.getName();
+
+        final List<FreeStyleBuild> history = new ArrayList<FreeStyleBuild>();
+        FreeStyleBuild previous = null;
+        for (int number = 1; number <= count; number++) {
+            final FreeStyleBuild build = mock(FreeStyleBuild.class);
+            when(build.getNumber()).thenReturn(number);
+            when(build.getProject()).thenReturn(project);
+            when(build.getParent()).thenReturn(project);
+            when(build.getDisplayName()).thenReturn("#" + number);
+            when(build.getUrl()).thenReturn(url + number + "/");
+            when(build.getResult()).thenReturn(Result.SUCCESS);
+            when(build.getDurationString()).thenReturn("1 sec");
+            when(build.getPreviousBuild()).thenReturn(previous);
+            if (upstreamName != null) {
+                final UpstreamCause cause = mock(UpstreamCause.class);
+                when(cause.getUpstreamProject()).thenReturn(upstreamName);
+                when(cause.getUpstreamBuild()).thenReturn(number);
+                final CauseAction action = new CauseAction(cause);
+                when(build.getActions(CauseAction.class)).thenReturn(Collections.singletonList(action));
+            } else {
+                when(build.getActions(CauseAction.class)).thenReturn(Collections.<CauseAction>emptyList());
+            }
+            history.add(build);
+            previous = build;
+        }
+
+        final List<FreeStyleBuild> newestFirst = new ArrayList<FreeStyleBuild>(history);
+        Collections.reverse(newestFirst);
+        final RunList<FreeStyleBuild> runList = mock(RunList.class);
+        when(runList.iterator()).thenAnswer(new Answer<Iterator<FreeStyleBuild>>() {
+            @Override
+            public Iterator<FreeStyleBuild> answer(final InvocationOnMock invocation) {
+                return newestFirst.iterator();
+            }
+        });
+        when(project.getBuilds()).thenReturn(runList);
+        when(project.getLastBuild()).thenReturn(newestFirst.isEmpty() ? null : newestFirst.get(0));
+        when(project.getBuildByNumber(anyInt())).thenAnswer(new Answer<FreeStyleBuild>() {
+            @Override
+            public FreeStyleBuild answer(final InvocationOnMock invocation) {
+                final int number = (Integer) invocation.getArguments()[0];
+                return (number < 1 || number > history.size()) ? null : history.get(number - 1);
+            }
+        });
+        when(project.getNearestOldBuild(anyInt())).thenAnswer(new Answer<FreeStyleBuild>() {
+            @Override
+            public FreeStyleBuild answer(final InvocationOnMock invocation) {
+                final int number = Math.min((Integer) invocation.getArguments()[0], history.size());
+                return (number < 1) ? null : history.get(number - 1);
+            }
+        });
+        return history;
+    }
+
+    /**
+     * Makes {@link Jenkins#getInstance()} return the stand-in.
+     *
+     * @param jenkins
+     *            the stand-in
+     */
+    private static void install(final Jenkins jenkins) {
+        try {
+            final Field field = Jenkins.class.getDeclaredField("theInstance");
+            field.setAccessible(true);
+            field.set(null, jenkins);
+        } catch (final NoSuchFieldException e) {
+            throw new IllegalStateException("Cannot install the stand-in Jenkins", e);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException("Cannot install the stand-in Jenkins", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
+
+/**
+ * The cards of a rendered form that changed since a browser last asked, see
+ * {@link BuildPipelineView#getBuildCardUpdates(long, long, String, String)}.
+ *
+ * Browsers get them as HTML from buildCardUpdates.jelly, which renders every card with the same page as the first paint of the view,
+ * so that the markup of a card has a single source. {@link #toJSON()} gives the same updates as data.
+ *
+ * @author Centrum Systems
+ */
+public final class BuildCardUpdates {
+
+    /** Updates telling the browser that the form it rendered is no longer known, and the page has to be reloaded. */
+    static final BuildCardUpdates RELOAD = new BuildCardUpdates(0, true, Collections.<BuildForm>emptyList(),
+            Collections.<String, Integer>emptyMap(), Collections.<ProjectForm>emptyList());
+
+    /** revision of {@link ProjectRevisions} the updates bring the browser to */
+    private final long revision;
+
+    /** whether the browser has to reload the page instead */
+    private final boolean reload;
+
+    /** the changed build cards, as the browser shows them */
+    private final List<BuildForm> builds;
+
+    /** card id -> number of the build that has started for the ticket the browser watched on that card */
+    private final Map<String, Integer> started;
+
+    /** the changed project cards */
+    private final List<ProjectForm> projects;
+
+    /**
+     * @param revision
+     *            revision the updates bring the browser to
+     * @param builds
+     *            the changed build cards
+     * @param started
+     *            card id -> number of the build that has started for the ticket of that card
+     * @param projects
+     *            the changed project cards
+     */
+    BuildCardUpdates(final long revision, final List<BuildForm> builds, final Map<String, Integer> started,
+            final List<ProjectForm> projects) {
+        this(revision, false, builds, started, projects);
+    }
+
+    /**
+     * @param revision
+     *            revision the updates bring the browser to
+     * @param reload
+     *            whether the browser has to reload the page instead
+     * @param builds
+     *            the changed build cards
+     * @param started
+     *            card id -> number of the build that has started for the ticket of that card
+     * @param projects
+     *            the changed project cards
+     */
+    private BuildCardUpdates(final long revision, final boolean reload, final List<BuildForm> builds,
+            final Map<String, Integer> started, final List<ProjectForm> projects) {
+        this.revision = revision;
+        this.reload = reload;
+        this.builds = builds;
+        this.started = started;
+        this.projects = projects;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public boolean isReload() {
+        return reload;
+    }
+
+    public List<BuildForm> getBuilds() {
+        return builds;
+    }
+
+    public Map<String, Integer> getStarted() {
+        return started;
+    }
+
+    public List<ProjectForm> getProjects() {
+        return projects;
+    }
+
+    /**
+     * @return the updates as JSON: the new revision, the changed build cards, the cards whose scheduled builds have started with the
+     *         numbers of those builds ("started") and the changed project cards, or a request to reload the page.
+     */
+    public String toJSON() {
+        if (reload) {
+            return "{\"reload\":true}"; //$NON-NLS-1$
+        }
+        final JSONWriter json = new JSONWriter();
+        json.object().member("revision", revision).key("builds").array(); //$NON-NLS-1$ //$NON-NLS-2$
+        for (final BuildForm card : builds) {
+            card.writeJSON(json);
+        }
+        json.endArray();
+
+        json.key("started").object(); //$NON-NLS-1$
+        for (final Map.Entry<String, Integer> entry : started.entrySet()) {
+            json.member(entry.getKey(), entry.getValue());
+        }
+        json.endObject();
+
+        json.key("projects").array(); //$NON-NLS-1$
+        for (final ProjectForm card : projects) {
+            card.writeJSON(json);
+        }
+        json.endArray().endObject();
+        return json.toString();
+    }
+}
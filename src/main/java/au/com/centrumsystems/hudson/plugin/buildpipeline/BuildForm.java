@@ -1,14 +1,19 @@
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
 import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
 import org.kohsuke.stapler.bind.JavaScriptMethod;
 
+import au.com.centrumsystems.hudson.plugin.util.BuildUtil;
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
+
 /**
  * @author Centrum Systems
  * 
@@ -27,55 +32,133 @@ public class BuildForm {
     private String status = "";
 
     /**
-     * pipeline build
+     * pipeline build. Forms are shared by the pages of all users, so it is only replaced under the lock of the form, by
+     * {@link #refresh()}, and read once per use.
      */
-    private PipelineBuild pipelineBuild;
+    private volatile PipelineBuild pipelineBuild;
 
     /**
-     * id
+     * id, see {@link CardIds}. Set when the card is placed in a grid, as it depends on the position of the card.
      */
-    private final Integer id;
+    private volatile String id;
 
     /**
      * project id used to update project cards
      */
     // TODO refactor to get rid of this coupling
-    private final Integer projectId;
+    private final String projectId;
+
+    /**
+     * number of the build shown when the card was created, 0 if there was none. Part of the id, which must not change when the card
+     * is updated to show a new build.
+     */
+    private final int buildNumber;
+
+    /**
+     * number of the build that started the pipeline instance this card belongs to
+     */
+    private final int pipelineNumber;
+
+    /**
+     * downstream builds, null until they are first asked for
+     */
+    private List<BuildForm> dependencies;
 
     /**
-     * downstream builds
+     * whether the layout stopped at this card and left (some of) its downstream builds out
      */
-    private List<BuildForm> dependencies = new ArrayList<BuildForm>();
+    private boolean truncated;
 
     /**
      * @param pipelineBuild
      *            pipeline build domain used to see the form
      */
     public BuildForm(final PipelineBuild pipelineBuild) {
+        this(pipelineBuild, -1);
+    }
+
+    /**
+     * @param pipelineBuild
+     *            pipeline build domain used to see the form
+     * @param pipelineNumber
+     *            number of the build that started the pipeline instance, -1 if this is that build
+     */
+    private BuildForm(final PipelineBuild pipelineBuild, final int pipelineNumber) {
         this.pipelineBuild = pipelineBuild;
         status = pipelineBuild.getCurrentBuildResult();
-        dependencies = new ArrayList<BuildForm>();
-        for (final PipelineBuild downstream : pipelineBuild.getDownstreamPipeline()) {
-            dependencies.add(new BuildForm(downstream));
-        }
-        id = hashCode();
-        projectId = pipelineBuild.getProject().getName().hashCode();
+        projectId = CardIds.project(pipelineBuild.getProject().getFullName());
+        final AbstractBuild<?, ?> build = pipelineBuild.getCurrentBuild();
+        buildNumber = (build == null) ? 0 : build.getNumber();
+        this.pipelineNumber = (pipelineNumber < 0) ? buildNumber : pipelineNumber;
     }
 
     public String getStatus() {
         return status;
     }
 
-    public List<BuildForm> getDependencies() {
+    /**
+     * The downstream builds are looked up on first call only, so that parts of the pipeline that are never laid out cost nothing.
+     *
+     * @return the forms of the downstream builds
+     */
+    public synchronized List<BuildForm> getDependencies() {
+        if (dependencies == null) {
+            final List<BuildForm> forms = new ArrayList<BuildForm>();
+            for (final PipelineBuild downstream : pipelineBuild.getDownstreamPipeline()) {
+                forms.add(new BuildForm(downstream, pipelineNumber));
+            }
+            dependencies = forms;
+        }
         return dependencies;
     }
 
+    /**
+     * @return true if there are downstream builds, without looking them up if they have not been looked up yet.
+     */
+    public synchronized boolean hasDependencies() {
+        if (dependencies == null) {
+            final PipelineBuild current = pipelineBuild;
+            return !current.getDependencyGraph().getDownstream(current.getProject()).isEmpty();
+        }
+        return !dependencies.isEmpty();
+    }
+
+    /**
+     * @return true if the layout stopped at this card and left (some of) its downstream builds out, see
+     *         {@link BuildPipelineView#expandBuildCard(long, String)}
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @param truncated
+     *            whether the layout left (some of) the downstream builds of this card out
+     */
+    void setTruncated(final boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return identifies this card across renders: the project and the build it shows, or the upstream build it waits for.
+     */
+    public String getExpandKey() {
+        final PipelineBuild current = pipelineBuild;
+        final AbstractBuild<?, ?> build = current.getCurrentBuild();
+        if (build != null) {
+            return build.getProject().getFullName() + '#' + build.getNumber();
+        }
+        final AbstractBuild<?, ?> upstreamBuild = current.getUpstreamBuild();
+        final String upstream = (upstreamBuild == null) ? "" : upstreamBuild.getProject().getFullName() + '#' + upstreamBuild.getNumber();
+        return current.getProject().getFullName() + '<' + upstream;
+    }
+
     /**
      * @return All ids for existing depencies.
      */
-    public List<Integer> getDependencyIds() {
-        final List<Integer> ids = new ArrayList<Integer>();
-        for (final BuildForm dependency : dependencies) {
+    public List<String> getDependencyIds() {
+        final List<String> ids = new ArrayList<String>();
+        for (final BuildForm dependency : getDependencies()) {
             ids.add(dependency.getId());
         }
         return ids;
@@ -86,28 +169,182 @@ public class BuildForm {
      */
     @JavaScriptMethod
     public String asJSON() {
-        return BuildJSONBuilder.asJSON(pipelineBuild, id, projectId, getDependencyIds());
+        final long started = PipelineMetrics.get().start();
+        try {
+            final JSONWriter json = new JSONWriter();
+            writeJSON(json);
+            return json.toString();
+        } finally {
+            PipelineMetrics.get().record(null, "BuildForm.asJSON", started); //$NON-NLS-1$
+        }
     }
 
-    public int getId() {
-        return id;
+    /**
+     * Writes the card as JSON, see {@link #asJSON()}.
+     *
+     * @param json
+     *            where to write the card
+     */
+    public void writeJSON(final JSONWriter json) {
+        BuildJSONBuilder.write(json, pipelineBuild, getId(), projectId, getShownDependencyIds(), truncated);
     }
 
     /**
-     * 
-     * @param nextBuildNumber
-     *            nextBuildNumber
-     * @return is the build pipeline updated.
+     * @return what the card shows, to render it on the server, see {@link BuildJSONBuilder#asCard}. Computed on every call, as the
+     *         build changes.
      */
-    @JavaScriptMethod
-    public boolean updatePipelineBuild(final int nextBuildNumber) {
-        boolean updated = false;
-        final AbstractBuild<?, ?> newBuild = pipelineBuild.getProject().getBuildByNumber(nextBuildNumber);
-        if (newBuild != null) {
-            updated = true;
-            pipelineBuild = new PipelineBuild(newBuild, newBuild.getProject(), pipelineBuild.getUpstreamBuild());
+    public Map<String, Object> getCard() {
+        return BuildJSONBuilder.asCard(pipelineBuild, getId(), projectId, getShownDependencyIds(), truncated);
+    }
+
+    /**
+     * @return ids of the cards of the downstream builds shown with this card.
+     */
+    private List<String> getShownDependencyIds() {
+        // the downstream builds of a truncated card are not shown, so do not look them up just for their ids
+        return truncated ? Collections.<String>emptyList() : getDependencyIds();
+    }
+
+    /**
+     * @return id of the card, see {@link CardIds}. The same on every render, as long as the card stays at the same position of the same
+     *         pipeline instance.
+     */
+    public String getId() {
+        String cardId = id;
+        if (cardId == null) {
+            // not placed in a grid (yet)
+            cardId = CardIds.build(pipelineBuild.getProject().getFullName(), buildNumber, pipelineNumber);
+            id = cardId;
+        }
+        return cardId;
+    }
+
+    /**
+     * Called by the grid the card is placed in.
+     *
+     * @param row
+     *            row of the card in its pipeline instance
+     * @param col
+     *            column of the card in its pipeline instance
+     */
+    void setPosition(final int row, final int col) {
+        id = CardIds.build(pipelineBuild.getProject().getFullName(), buildNumber, pipelineNumber, row, col);
+    }
+
+    /**
+     * @param original
+     *            the card to copy
+     * @param pipelineBuild
+     *            what the copy shows
+     */
+    private BuildForm(final BuildForm original, final PipelineBuild pipelineBuild) {
+        this.pipelineBuild = pipelineBuild;
+        status = pipelineBuild.getCurrentBuildResult();
+        id = original.getId();
+        projectId = original.projectId;
+        buildNumber = original.buildNumber;
+        pipelineNumber = original.pipelineNumber;
+        truncated = original.truncated;
+        // the copy takes the place of the original on the page, next to the same downstream cards
+        dependencies = truncated ? null : original.getDependencies();
+    }
+
+    /**
+     * Shows a build one browser has scheduled for this card, see {@link BuildTicket}. This card is shared with other pages, so it is
+     * left as it is.
+     *
+     * @param newBuild
+     *            a build of the project of this card
+     * @return a copy of this card, with the same id, showing the build instead; this card if it already shows the build.
+     */
+    public BuildForm showingBuild(final AbstractBuild<?, ?> newBuild) {
+        final PipelineBuild current = pipelineBuild;
+        if (newBuild == current.getCurrentBuild()) {
+            return this;
+        }
+        return new BuildForm(this, showing(current, newBuild, current.getUpstreamBuild()));
+    }
+
+    /**
+     * Tests whether anything shown on this card may have changed since the given revision of {@link ProjectRevisions}. A card that is
+     * building always has, as its progress moves on without any event.
+     *
+     * @param revision
+     *            revision the browser has last seen
+     * @return true if the card should be sent to the browser again.
+     */
+    public boolean isChangedSince(final long revision) {
+        if (isBuilding()) {
+            return true;
+        }
+        final PipelineBuild current = pipelineBuild;
+        final ProjectRevisions revisions = ProjectRevisions.get();
+        if (revisions.getRevision(current.getProject().getFullName()) > revision) {
+            return true;
         }
-        return updated;
+        final AbstractBuild<?, ?> upstreamBuild = current.getUpstreamBuild();
+        return upstreamBuild != null && revisions.getRevision(upstreamBuild.getProject().getFullName()) > revision;
+    }
+
+    /**
+     * @return true if the build shown on this card is in progress.
+     */
+    public boolean isBuilding() {
+        final AbstractBuild<?, ?> build = pipelineBuild.getCurrentBuild();
+        return build != null && build.isBuilding();
+    }
+
+    /**
+     * If this card is still waiting for its build, looks for a build of the project that has since been triggered by the upstream
+     * build.
+     *
+     * @return true if the card now shows a build it did not show before.
+     */
+    public boolean refresh() {
+        final PipelineBuild current = pipelineBuild;
+        final AbstractBuild<?, ?> upstreamBuild = current.getUpstreamBuild();
+        if (current.getCurrentBuild() != null || upstreamBuild == null) {
+            return false;
+        }
+        // searched without the lock, as every page polling this card may ask at the same time
+        final AbstractBuild<?, ?> newBuild = BuildUtil.getDownstreamBuild(current.getProject(), upstreamBuild,
+                current.getDownstreamSearch());
+        if (newBuild == null) {
+            return false;
+        }
+        synchronized (this) {
+            if (pipelineBuild != current) {
+                // another page got there first
+                return false;
+            }
+            pipelineBuild = showing(current, newBuild, upstreamBuild);
+        }
+        return true;
+    }
+
+    /**
+     * @param current
+     *            what the card shows now
+     * @param newBuild
+     *            the build the card is to show
+     * @param upstreamBuild
+     *            the upstream build of the card
+     * @return the pipeline build of the new build, searching downstream builds as far back and against the same dependency graph as
+     *         the current one does
+     */
+    private static PipelineBuild showing(final PipelineBuild current, final AbstractBuild<?, ?> newBuild,
+            final AbstractBuild<?, ?> upstreamBuild) {
+        final PipelineBuild newPipelineBuild = new PipelineBuild(newBuild, newBuild.getProject(), upstreamBuild);
+        newPipelineBuild.setDownstreamSearch(current.getDownstreamSearch());
+        newPipelineBuild.setDependencyGraph(current.getDependencyGraph());
+        return newPipelineBuild;
+    }
+
+    /**
+     * @return the project of the build shown on this card
+     */
+    public AbstractProject<?, ?> getProject() {
+        return pipelineBuild.getProject();
     }
 
     public int getNextBuildNumber() {
@@ -120,14 +357,19 @@ public class BuildForm {
 
     @JavaScriptMethod
     public boolean isManualTrigger() {
-        return pipelineBuild.isManualTrigger();
+        final long started = PipelineMetrics.get().start();
+        try {
+            return pipelineBuild.isManualTrigger();
+        } finally {
+            PipelineMetrics.get().record(null, "BuildForm.isManualTrigger", started); //$NON-NLS-1$
+        }
     }
 
     public Map<String, String> getParameters() {
         return pipelineBuild.getBuildParameters();
     }
 
-    public Integer getProjectId() {
+    public String getProjectId() {
         return projectId;
     }
 
@@ -7,4 +7,10 @@ package au.com.centrumsystems.hudson.plugin.buildpipeline;
  * @author Kohsuke Kawaguchi
  */
 public abstract class BuildGrid extends Grid<BuildForm> {
+    /**
+     * @return true if this pipeline instance is still being laid out, so that what it shows will change by itself.
+     */
+    public boolean isPending() {
+        return false;
+    }
 }
@@ -0,0 +1,366 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.Executor;
+import hudson.model.Item;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.com.centrumsystems.hudson.plugin.util.HudsonResult;
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
+
+/**
+ * Writes the JSON a build card is rendered from.
+ *
+ * Every derived value (build status, upstream build, last builds of the projects...) is computed once per card, and the card is
+ * written member by member straight into a {@link JSONWriter}, so that the cards of a whole grid can be streamed into one response
+ * without building a tree first. The same values are rendered on the server for the first paint of a page, see {@link #asCard}.
+ *
+ * @author Centrum Systems
+ */
+public final class BuildJSONBuilder {
+
+    /**
+     * Only static methods.
+     */
+    private BuildJSONBuilder() {
+    }
+
+    /**
+     * @param pipelineBuild
+     *            the build shown on the card
+     * @param formId
+     *            id of the card
+     * @param projectId
+     *            id of the project card of the build's project
+     * @param buildDependencyIds
+     *            ids of the cards of the downstream builds
+     * @param truncated
+     *            whether the layout left (some of) the downstream builds out
+     * @return the JSON of the card
+     */
+    public static String asJSON(final PipelineBuild pipelineBuild, final String formId, final String projectId,
+            final List<String> buildDependencyIds, final boolean truncated) {
+        final JSONWriter json = new JSONWriter();
+        write(json, pipelineBuild, formId, projectId, buildDependencyIds, truncated);
+        return json.toString();
+    }
+
+    /**
+     * Writes the JSON of a card, member by member.
+     *
+     * @param json
+     *            where to write the card
+     * @param pipelineBuild
+     *            the build shown on the card
+     * @param formId
+     *            id of the card
+     * @param projectId
+     *            id of the project card of the build's project
+     * @param buildDependencyIds
+     *            ids of the cards of the downstream builds
+     * @param truncated
+     *            whether the layout left (some of) the downstream builds out
+     */
+    public static void write(final JSONWriter json, final PipelineBuild pipelineBuild, final String formId, final String projectId,
+            final List<String> buildDependencyIds, final boolean truncated) {
+        new Card(pipelineBuild, formId, projectId, buildDependencyIds, truncated).write(json);
+    }
+
+    /**
+     * What a card shows: the members its JSON is written from, with null for the values a build does not have. Rendered by
+     * {@code buildCard.jelly}.
+     *
+     * @param pipelineBuild
+     *            the build shown on the card
+     * @param formId
+     *            id of the card
+     * @param projectId
+     *            id of the project card of the build's project
+     * @param buildDependencyIds
+     *            ids of the cards of the downstream builds
+     * @param truncated
+     *            whether the layout left (some of) the downstream builds out
+     * @return the card, as nested maps keyed by the names of the JSON members
+     */
+    public static Map<String, Object> asCard(final PipelineBuild pipelineBuild, final String formId, final String projectId,
+            final List<String> buildDependencyIds, final boolean truncated) {
+        return new Card(pipelineBuild, formId, projectId, buildDependencyIds, truncated).asMap();
+    }
+
+    /**
+     * @param build
+     *            a build, possibly null
+     * @return its number, or null
+     */
+    private static Integer number(final AbstractBuild<?, ?> build) {
+        return (build == null) ? null : build.getNumber();
+    }
+
+    /**
+     * The values of a card, each derived once from the build. Written straight into a {@link JSONWriter} for the browser, or put into
+     * maps for Jelly; both name the members alike.
+     */
+    private static final class Card {
+        /** id of the card. */
+        private final String id;
+        /** id of the project card of the build's project. */
+        private final String projectId;
+        /** ids of the cards of the downstream builds. */
+        private final List<String> dependencyIds;
+        /** whether the layout left (some of) the downstream builds out. */
+        private final boolean truncated;
+
+        /** display name of the build, null if there is no build. */
+        private final String displayName;
+        /** how long the build took. */
+        private final String duration;
+        /** externalizable id of the build, null if there is no build. */
+        private final String extId;
+        /** whether the user may build the project. */
+        private final boolean hasPermission;
+        /** whether there is an upstream build. */
+        private final boolean hasUpstreamBuild;
+        /** whether the build is running. */
+        private final boolean building;
+        /** whether the build is waiting for its upstream build. */
+        private final boolean pending;
+        /** whether the build waits for a manual trigger. */
+        private final boolean manual;
+        /** whether the build succeeded. */
+        private final boolean success;
+        /** whether the build can be triggered manually now. */
+        private final boolean readyToBeManuallyBuilt;
+        /** whether the build is triggered manually. */
+        private final boolean manualTrigger;
+        /** whether the build is the last build of its project. */
+        private final boolean latestBuild;
+        /** whether the upstream build is the last build of its project. */
+        private final boolean upstreamLatest;
+        /** whether the upstream build is the last successful build of its project. */
+        private final boolean upstreamLatestSuccess;
+        /** number of the build, null if there is no build. */
+        private final Integer number;
+        /** percentage of the build done. */
+        private final long progress;
+        /** formatted start date of the build. */
+        private final String startDate;
+        /** formatted start time of the build. */
+        private final String startTime;
+        /** status of the build, see {@link HudsonResult}. */
+        private final String status;
+        /** URL of the build, or of the project if there is no build. */
+        private final String url;
+        /** user who started the build, null if none did. */
+        private final String userId;
+        /** estimated time until the build completes, null if it is not running. */
+        private final String estimatedRemainingTime;
+
+        /** whether the project is disabled. */
+        private final boolean projectDisabled;
+        /** name of the project. */
+        private final String projectName;
+        /** URL of the project. */
+        private final String projectURL;
+        /** health of the project. */
+        private final String projectHealth;
+
+        /** name of the upstream project, null if there is none. */
+        private final String upstreamProjectName;
+        /** number of the upstream build, null if there is none. */
+        private final Integer upstreamNumber;
+
+        /**
+         * @param pipelineBuild
+         *            the build shown on the card
+         * @param id
+         *            id of the card
+         * @param projectId
+         *            id of the project card of the build's project
+         * @param dependencyIds
+         *            ids of the cards of the downstream builds
+         * @param truncated
+         *            whether the layout left (some of) the downstream builds out
+         */
+        Card(final PipelineBuild pipelineBuild, final String id, final String projectId, final List<String> dependencyIds,
+                final boolean truncated) {
+            this.id = id;
+            this.projectId = projectId;
+            this.dependencyIds = dependencyIds;
+            this.truncated = truncated;
+
+            final AbstractBuild<?, ?> currentBuild = pipelineBuild.getCurrentBuild();
+            final AbstractProject<?, ?> project = pipelineBuild.getProject();
+            final AbstractBuild<?, ?> upstreamBuild = pipelineBuild.getUpstreamBuild();
+            final AbstractProject<?, ?> upstreamProject = pipelineBuild.getUpstreamPipelineBuild().getProject();
+
+            status = pipelineBuild.getCurrentBuildResult();
+            building = HudsonResult.BUILDING.toString().equals(status);
+            pending = HudsonResult.PENDING.toString().equals(status);
+            manual = HudsonResult.MANUAL.toString().equals(status);
+            success = HudsonResult.SUCCESS.toString().equals(status);
+            readyToBeManuallyBuilt = pipelineBuild.isReadyToBeManuallyBuilt();
+            manualTrigger = pipelineBuild.isManualTrigger();
+            progress = pipelineBuild.getBuildProgress();
+            duration = pipelineBuild.getBuildDuration();
+            startDate = pipelineBuild.getFormattedStartDate();
+            startTime = pipelineBuild.getFormattedStartTime();
+            final String buildResultURL = pipelineBuild.getBuildResultURL();
+            projectURL = pipelineBuild.getProjectURL();
+            url = (buildResultURL == null || buildResultURL.length() == 0) ? projectURL : buildResultURL;
+
+            number = number(currentBuild);
+            upstreamNumber = number(upstreamBuild);
+            final Integer lastNumber = (project == null) ? null : number(project.getLastBuild());
+            final Integer upstreamLastNumber = (upstreamProject == null) ? null : number(upstreamProject.getLastBuild());
+            final Integer upstreamLastSuccessNumber = (upstreamProject == null) ? null
+                    : number(upstreamProject.getLastSuccessfulBuild());
+            latestBuild = number != null && number.equals(lastNumber);
+            upstreamLatest = upstreamNumber != null && upstreamNumber.equals(upstreamLastNumber);
+            upstreamLatestSuccess = upstreamNumber != null && upstreamNumber.equals(upstreamLastSuccessNumber);
+            hasUpstreamBuild = upstreamBuild != null;
+            hasPermission = project != null && project.hasPermission(Item.BUILD);
+
+            if (currentBuild == null) {
+                displayName = null;
+                extId = null;
+                userId = null;
+                estimatedRemainingTime = null;
+            } else {
+                displayName = currentBuild.getDisplayName();
+                extId = currentBuild.getExternalizableId();
+                final Cause.UserIdCause cause = currentBuild.getCause(Cause.UserIdCause.class);
+                userId = (cause == null) ? null : cause.getUserId();
+                final Executor executor = currentBuild.getExecutor();
+                estimatedRemainingTime = (executor == null) ? null : executor.getEstimatedRemainingTime();
+            }
+
+            projectDisabled = pipelineBuild.isProjectDisabled();
+            projectName = project.getName();
+            projectHealth = pipelineBuild.getProjectHealth();
+            upstreamProjectName = (upstreamProject == null) ? null : upstreamProject.getName();
+        }
+
+        /**
+         * @param json
+         *            where to write the card
+         */
+        void write(final JSONWriter json) {
+            json.object();
+            json.member("id", id); //$NON-NLS-1$
+            json.key("build").object(); //$NON-NLS-1$
+            json.key("dependencyIds").array(); //$NON-NLS-1$
+            for (final String dependencyId : dependencyIds) {
+                json.value(dependencyId);
+            }
+            json.endArray();
+            json.member("displayName", displayName); //$NON-NLS-1$
+            json.member("duration", duration); //$NON-NLS-1$
+            json.member("extId", extId); //$NON-NLS-1$
+            json.member("hasPermission", hasPermission); //$NON-NLS-1$
+            json.member("hasUpstreamBuild", hasUpstreamBuild); //$NON-NLS-1$
+            json.member("isBuilding", building); //$NON-NLS-1$
+            json.member("isComplete", isComplete()); //$NON-NLS-1$
+            json.member("isPending", pending); //$NON-NLS-1$
+            json.member("isSuccess", success); //$NON-NLS-1$
+            json.member("isReadyToBeManuallyBuilt", readyToBeManuallyBuilt); //$NON-NLS-1$
+            json.member("isManualTrigger", manualTrigger); //$NON-NLS-1$
+            json.member("isTruncated", truncated); //$NON-NLS-1$
+            json.member("isRerunable", isRerunable()); //$NON-NLS-1$
+            json.member("isLatestBuild", latestBuild); //$NON-NLS-1$
+            json.member("isUpstreamBuildLatest", upstreamLatest); //$NON-NLS-1$
+            json.member("isUpstreamBuildLatestSuccess", upstreamLatestSuccess); //$NON-NLS-1$
+            json.member("number", number); //$NON-NLS-1$
+            json.member("progress", progress); //$NON-NLS-1$
+            json.member("progressLeft", 100 - progress); //$NON-NLS-1$
+            json.member("startDate", startDate); //$NON-NLS-1$
+            json.member("startTime", startTime); //$NON-NLS-1$
+            json.member("status", status); //$NON-NLS-1$
+            json.member("url", url); //$NON-NLS-1$
+            json.member("userId", userId); //$NON-NLS-1$
+            json.member("estimatedRemainingTime", estimatedRemainingTime); //$NON-NLS-1$
+            json.endObject();
+            json.key("project").object(); //$NON-NLS-1$
+            json.member("disabled", projectDisabled); //$NON-NLS-1$
+            json.member("name", projectName); //$NON-NLS-1$
+            json.member("url", projectURL); //$NON-NLS-1$
+            json.member("health", projectHealth); //$NON-NLS-1$
+            json.member("id", projectId); //$NON-NLS-1$
+            json.endObject();
+            json.key("upstream").object(); //$NON-NLS-1$
+            json.member("projectName", upstreamProjectName); //$NON-NLS-1$
+            json.member("buildNumber", upstreamNumber); //$NON-NLS-1$
+            json.endObject();
+            json.endObject();
+        }
+
+        /**
+         * @return the card, as nested maps keyed by the names of the JSON members
+         */
+        Map<String, Object> asMap() {
+            final Map<String, Object> build = new LinkedHashMap<String, Object>();
+            build.put("dependencyIds", dependencyIds); //$NON-NLS-1$
+            build.put("displayName", displayName); //$NON-NLS-1$
+            build.put("duration", duration); //$NON-NLS-1$
+            build.put("extId", extId); //$NON-NLS-1$
+            build.put("hasPermission", hasPermission); //$NON-NLS-1$
+            build.put("hasUpstreamBuild", hasUpstreamBuild); //$NON-NLS-1$
+            build.put("isBuilding", building); //$NON-NLS-1$
+            build.put("isComplete", isComplete()); //$NON-NLS-1$
+            build.put("isPending", pending); //$NON-NLS-1$
+            build.put("isSuccess", success); //$NON-NLS-1$
+            build.put("isReadyToBeManuallyBuilt", readyToBeManuallyBuilt); //$NON-NLS-1$
+            build.put("isManualTrigger", manualTrigger); //$NON-NLS-1$
+            build.put("isTruncated", truncated); //$NON-NLS-1$
+            build.put("isRerunable", isRerunable()); //$NON-NLS-1$
+            build.put("isLatestBuild", latestBuild); //$NON-NLS-1$
+            build.put("isUpstreamBuildLatest", upstreamLatest); //$NON-NLS-1$
+            build.put("isUpstreamBuildLatestSuccess", upstreamLatestSuccess); //$NON-NLS-1$
+            build.put("number", number); //$NON-NLS-1$
+            build.put("progress", progress); //$NON-NLS-1$
+            build.put("progressLeft", 100 - progress); //$NON-NLS-1$
+            build.put("startDate", startDate); //$NON-NLS-1$
+            build.put("startTime", startTime); //$NON-NLS-1$
+            build.put("status", status); //$NON-NLS-1$
+            build.put("url", url); //$NON-NLS-1$
+            build.put("userId", userId); //$NON-NLS-1$
+            build.put("estimatedRemainingTime", estimatedRemainingTime); //$NON-NLS-1$
+
+            final Map<String, Object> projectCard = new LinkedHashMap<String, Object>();
+            projectCard.put("disabled", projectDisabled); //$NON-NLS-1$
+            projectCard.put("name", projectName); //$NON-NLS-1$
+            projectCard.put("url", projectURL); //$NON-NLS-1$
+            projectCard.put("health", projectHealth); //$NON-NLS-1$
+            projectCard.put("id", projectId); //$NON-NLS-1$
+
+            final Map<String, Object> upstream = new LinkedHashMap<String, Object>();
+            upstream.put("projectName", upstreamProjectName); //$NON-NLS-1$
+            upstream.put("buildNumber", upstreamNumber); //$NON-NLS-1$
+
+            final Map<String, Object> card = new LinkedHashMap<String, Object>();
+            card.put("id", id); //$NON-NLS-1$
+            card.put("build", build); //$NON-NLS-1$
+            card.put("project", projectCard); //$NON-NLS-1$
+            card.put("upstream", upstream); //$NON-NLS-1$
+            return card;
+        }
+
+        /**
+         * @return whether the build has completed
+         */
+        private boolean isComplete() {
+            return !building && !pending && !manual;
+        }
+
+        /**
+         * @return whether the build can be run again
+         */
+        private boolean isRerunable() {
+            return !pending && !building && !readyToBeManuallyBuilt;
+        }
+    }
+}
@@ -2,8 +2,11 @@ package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
 import com.google.common.collect.Iterables;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 /**
@@ -18,16 +21,42 @@ public class BuildPipelineForm {
      */
     private static final Logger LOGGER = Logger.getLogger(BuildPipelineForm.class.getName());
 
+    /**
+     * source of form ids
+     */
+    private static final AtomicLong IDS = new AtomicLong();
+
+    /**
+     * identifies this form to the browsers that rendered it
+     */
+    private final long id = IDS.incrementAndGet();
+
     /**
      * projects laid out in a grid using maps to ease accessing (or maybe I made it way too complicated by not using a 2-dimensional array)
      * Outside map holds rows and inner map has ProjectForm at a particular position (defined with key)
      */
     private final ProjectGrid projectGrid;
     /**
-     * a list of maps of map represents build pipelines laid out in grids, similar to projectGrid, but we have many of these grids
+     * a list of maps of map represents build pipelines laid out in grids, similar to projectGrid, but we have many of these grids. Only
+     * the pages laid out so far.
      */
     private final List<BuildGrid> buildGrids;
 
+    /**
+     * how many build grids this form shows at most
+     */
+    private final int maxBuildGrids;
+
+    /**
+     * whether the project grid has no more build grids to lay out
+     */
+    private boolean exhausted;
+
+    /**
+     * build cards laid out so far plus project cards, counted as grids are laid out
+     */
+    private int cellCount;
+
     /**
      * 
      * @param grid
@@ -37,7 +66,28 @@ public class BuildPipelineForm {
      */
     public BuildPipelineForm(final ProjectGrid grid, final Iterable<BuildGrid> builds) {
         projectGrid = grid;
-        buildGrids = Arrays.asList(Iterables.toArray(builds, BuildGrid.class));
+        buildGrids = new ArrayList<BuildGrid>(Arrays.asList(Iterables.toArray(builds, BuildGrid.class)));
+        maxBuildGrids = buildGrids.size();
+        exhausted = true;
+        cellCount = getProjectForms().size() + countCells(buildGrids);
+    }
+
+    /**
+     * Lays out the first page of build grids only; the others are laid out when asked for by {@link #getBuildGrids(int, int)}.
+     *
+     * @param grid
+     *            Project to be laid out in a grid
+     * @param maxBuildGrids
+     *            how many build grids to show at most
+     * @param pageSize
+     *            how many build grids to lay out right away
+     */
+    public BuildPipelineForm(final ProjectGrid grid, final int maxBuildGrids, final int pageSize) {
+        projectGrid = grid;
+        buildGrids = new ArrayList<BuildGrid>();
+        this.maxBuildGrids = maxBuildGrids;
+        cellCount = getProjectForms().size();
+        getBuildGrids(0, pageSize);
     }
 
     public ProjectGrid getProjectGrid() {
@@ -57,8 +107,110 @@ public class BuildPipelineForm {
         return projectGrid.getRows();
     }
 
-    public List<BuildGrid> getBuildGrids() {
-        return buildGrids;
+    /**
+     * @return the build grids laid out so far.
+     */
+    public synchronized List<BuildGrid> getBuildGrids() {
+        return new ArrayList<BuildGrid>(buildGrids);
+    }
+
+    /**
+     * Gets a page of build grids, laying out the ones that have not been laid out yet.
+     *
+     * @param offset
+     *            index of the first build grid, from the newest one
+     * @param limit
+     *            how many build grids to get at most
+     * @return the build grids, empty past the last one.
+     */
+    public synchronized List<BuildGrid> getBuildGrids(final int offset, final int limit) {
+        final int end = (int) Math.min((long) offset + limit, maxBuildGrids);
+        if (end > buildGrids.size() && !exhausted) {
+            final int wanted = end - buildGrids.size();
+            int added = 0;
+            for (final BuildGrid grid : projectGrid.builds(buildGrids.size(), wanted)) {
+                buildGrids.add(grid);
+                cellCount += countCells(Collections.singletonList(grid));
+                added++;
+            }
+            exhausted = added < wanted;
+            LOGGER.fine(String.format("Laid out %d more build grids, %d in total", added, buildGrids.size())); //$NON-NLS-1$
+        }
+        if (offset >= Math.min(end, buildGrids.size())) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<BuildGrid>(buildGrids.subList(offset, Math.min(end, buildGrids.size())));
+    }
+
+    /**
+     * @return true if there may be more build grids than have been laid out so far.
+     */
+    public synchronized boolean hasMoreBuildGrids() {
+        return !exhausted && buildGrids.size() < maxBuildGrids;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return number of build cards laid out so far plus number of project cards, without walking the grids.
+     */
+    public synchronized int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @param grids
+     *            build grids
+     * @return number of build cards in the grids
+     */
+    static int countCells(final List<BuildGrid> grids) {
+        int cells = 0;
+        for (final BuildGrid grid : grids) {
+            for (int row = 0; row < grid.getRows(); row++) {
+                for (int col = 0; col < grid.getColumns(); col++) {
+                    if (grid.get(row, col) != null) {
+                        cells++;
+                    }
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return all build cards laid out in the build grids, in display order.
+     */
+    public List<BuildForm> getBuildForms() {
+        final List<BuildForm> forms = new ArrayList<BuildForm>();
+        for (final BuildGrid grid : getBuildGrids()) {
+            for (int row = 0; row < grid.getRows(); row++) {
+                for (int col = 0; col < grid.getColumns(); col++) {
+                    final BuildForm form = grid.get(row, col);
+                    if (form != null) {
+                        forms.add(form);
+                    }
+                }
+            }
+        }
+        return forms;
+    }
+
+    /**
+     * @return all project cards laid out in the project grid.
+     */
+    public List<ProjectForm> getProjectForms() {
+        final List<ProjectForm> forms = new ArrayList<ProjectForm>();
+        for (int row = 0; row < projectGrid.getRows(); row++) {
+            for (int col = 0; col < projectGrid.getColumns(); col++) {
+                final ProjectForm form = projectGrid.get(row, col);
+                if (form != null) {
+                    forms.add(form);
+                }
+            }
+        }
+        return forms;
     }
 
 }
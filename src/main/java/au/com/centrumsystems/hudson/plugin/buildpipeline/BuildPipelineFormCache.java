@@ -0,0 +1,144 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import hudson.model.DependencyGraph;
+import jenkins.model.Jenkins;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Holds the last {@link BuildPipelineForm} computed by a view so that repeated renders of an unchanged pipeline are served from
+ * memory. Views and dashboard portlets whose grid builder supports {@link ProjectGridBuilder#getCacheKey(BuildPipelineView)} use the
+ * Jenkins-wide caches of {@link #getShared(Object)} instead of their own, so that a pipeline shown in many places is computed once.
+ *
+ * The cached form is dropped as soon as any project laid out in its {@link ProjectGrid} changes (see {@link ProjectRevisions}), or
+ * the dependency graph is rebuilt, which happens whenever the shape of the pipeline may have changed.
+ *
+ * @author Centrum Systems
+ */
+public class BuildPipelineFormCache {
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = Logger.getLogger(BuildPipelineFormCache.class.getName());
+
+    /**
+     * How many distinct pipelines the Jenkins-wide caches are kept for.
+     */
+    private static final int MAX_SHARED = 64;
+
+    /**
+     * form cache key (grid builder cache key and number of displayed builds) -> Jenkins-wide cache, least recently used first
+     */
+    private static final Map<Object, BuildPipelineFormCache> SHARED = new LinkedHashMap<Object, BuildPipelineFormCache>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Object, BuildPipelineFormCache> eldest) {
+            return size() > MAX_SHARED;
+        }
+    };
+
+    /**
+     * Identifies the settings the form was computed with.
+     */
+    private Object key;
+
+    /**
+     * The cached form.
+     */
+    private BuildPipelineForm form;
+
+    /**
+     * Revision of {@link ProjectRevisions} at the time the form started being computed.
+     */
+    private long revision;
+
+    /**
+     * Full names of the projects laid out in the form.
+     */
+    private Set<String> projects;
+
+    /**
+     * The dependency graph the form was computed from.
+     */
+    private DependencyGraph graph;
+
+    /**
+     * @param key
+     *            identifies the settings the form is computed with: what {@link ProjectGridBuilder#getCacheKey(BuildPipelineView)}
+     *            returned, not null, and the number of displayed builds
+     * @return the Jenkins-wide cache of the form of that grid with those settings, created on first use.
+     */
+    public static BuildPipelineFormCache getShared(final Object key) {
+        synchronized (SHARED) {
+            BuildPipelineFormCache cache = SHARED.get(key);
+            if (cache == null) {
+                cache = new BuildPipelineFormCache();
+                SHARED.put(key, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * @param key
+     *            identifies the settings the caller is about to compute the form with
+     * @return the cached form, or null if there is none or it is out of date.
+     */
+    public synchronized BuildPipelineForm get(final Object key) {
+        if (form == null || !key.equals(this.key)) {
+            return null;
+        }
+        if (graph != Jenkins.getInstance().getDependencyGraph()) {
+            LOGGER.fine("Dependency graph changed, dropping cached pipeline form"); //$NON-NLS-1$
+            clear();
+            return null;
+        }
+        final ProjectRevisions revisions = ProjectRevisions.get();
+        for (final String project : projects) {
+            if (revisions.getRevision(project) > revision) {
+                LOGGER.fine("Project " + project + " changed, dropping cached pipeline form"); //$NON-NLS-1$ //$NON-NLS-2$
+                clear();
+                return null;
+            }
+        }
+        return form;
+    }
+
+    /**
+     * Caches a freshly computed form.
+     *
+     * @param key
+     *            identifies the settings the form was computed with
+     * @param revision
+     *            value of {@link ProjectRevisions#getRevision()} read before the form was computed
+     * @param form
+     *            the form
+     */
+    public synchronized void put(final Object key, final long revision, final BuildPipelineForm form) {
+        final Set<String> names = new HashSet<String>();
+        for (final ProjectForm project : form.getProjectForms()) {
+            names.add(project.getFullName());
+        }
+
+        this.key = key;
+        this.form = form;
+        this.revision = revision;
+        this.projects = names;
+        this.graph = Jenkins.getInstance().getDependencyGraph();
+    }
+
+    /**
+     * Drops the cached form.
+     */
+    public synchronized void clear() {
+        key = null;
+        form = null;
+        projects = null;
+        graph = null;
+    }
+}
@@ -24,11 +24,10 @@
  */
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
-import com.google.common.collect.Iterables;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.Action;
 import hudson.model.Item;
-import hudson.model.ParameterValue;
 import hudson.model.TaskListener;
 import hudson.model.TopLevelItem;
 import hudson.model.AbstractBuild;
@@ -39,6 +38,7 @@ import hudson.model.CauseAction;
 import hudson.model.Descriptor.FormException;
 import hudson.model.Hudson;
 import hudson.model.ParametersAction;
+import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.User;
 import hudson.model.View;
@@ -50,23 +50,37 @@ import hudson.util.ListBoxModel;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletException;
 
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import jenkins.model.Jenkins;
+
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.bind.JavaScriptMethod;
 
 import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
 import au.com.centrumsystems.hudson.plugin.util.BuildUtil;
+import au.com.centrumsystems.hudson.plugin.util.DownstreamSearch;
+import au.com.centrumsystems.hudson.plugin.util.HudsonResult;
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
 import au.com.centrumsystems.hudson.plugin.util.ProjectUtil;
 
 /**
@@ -115,6 +129,12 @@ public class BuildPipelineView extends View {
     /** showPipelineDefinitionHeader. */
     private boolean showPipelineDefinitionHeader;
 
+    /** How many builds of a downstream project are searched for the build of a pipeline instance at most, 0 for all of them. */
+    private int downstreamSearchDepth;
+
+    /** Indicates whether the search for the build of a downstream project stops at builds that started before the upstream build. */
+    private boolean downstreamSearchSinceUpstream;
+
     /*
      * Keep feature flag properties in one place so that it is easy to refactor them out later.
      */
@@ -123,8 +143,23 @@ public class BuildPipelineView extends View {
     /** Indicates whether the progress bar should be displayed */
     private boolean displayProgressBar;
 
+    /** Indicates whether browsers wait for the server to push build card updates instead of polling for them */
+    private boolean pushUpdates;
+
     /* Feature flags - END */
 
+    /** Last computed pipeline, reused until one of its projects changes. */
+    private transient BuildPipelineFormCache formCache;
+
+    /** Forms recently rendered by browsers, by id, so that their cards can be updated later on. */
+    private transient Map<Long, BuildPipelineForm> renderedForms;
+
+    /** Keys of the build cards users asked to see past the layout budget of the grid builder, see {@link BuildForm#getExpandKey()}. */
+    private transient Set<String> expandedBuildCards;
+
+    /** Version of the settings of this view, part of the entity tags of its pages; 0 until first used. */
+    private transient long configVersion;
+
     /** A Logger object is used to log messages */
     private static final Logger LOGGER = Logger.getLogger(BuildPipelineView.class.getName());
     /** Constant that represents the Stapler Request upstream build number. */
@@ -133,6 +168,17 @@ public class BuildPipelineView extends View {
     private static final String REQ_TRIGGER_PROJECT_NAME = "triggerProjectName"; //$NON-NLS-1$
     /** Constant that represents the Stapler Request upstream project name. */
     private static final String REQ_UPSTREAM_PROJECT_NAME = "upstreamProjectName"; //$NON-NLS-1$
+    /** How many rendered forms are remembered for {@link #getBuildCardUpdates(long, long, String, String)}. */
+    private static final int MAX_RENDERED_FORMS = 8;
+    /**
+     * How long {@link #waitForBuildCardUpdates(long, long, String, String)} holds on to a request while nothing happens, in
+     * milliseconds.
+     */
+    private static final long PUSH_TIMEOUT = 25000;
+    /** How many instances of the pipeline are laid out with the page; the others are fetched as the user scrolls down. */
+    private static final int BUILD_GRID_PAGE_SIZE = 10;
+    /** Source of {@link #configVersion}s. Starts at the start time, so that tags from before a restart are not taken for new ones. */
+    private static final AtomicLong CONFIG_VERSIONS = new AtomicLong(System.currentTimeMillis());
 
     /**
      * An instance of {@link Cause.UserIdCause} related to the current user. Must be transient, or xstream will include it in the
@@ -296,6 +342,21 @@ public class BuildPipelineView extends View {
     @Override
     protected void submit(final StaplerRequest req) throws IOException, ServletException, FormException {
         req.bindJSON(this, req.getSubmittedForm());
+        getFormCache().clear();
+        synchronized (this) {
+            // the form may be shared with other views, so the pages of this view are told apart by the version of its settings
+            configVersion = CONFIG_VERSIONS.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the version of the settings of this view, which changes whenever the view is reconfigured
+     */
+    synchronized long getConfigVersion() {
+        if (configVersion == 0) {
+            configVersion = CONFIG_VERSIONS.incrementAndGet();
+        }
+        return configVersion;
     }
 
     /**
@@ -355,15 +416,513 @@ public class BuildPipelineView extends View {
      *             {@link URISyntaxException}
      */
     public BuildPipelineForm getBuildPipelineForm() throws URISyntaxException {
-        final int maxNoOfDisplayBuilds = Integer.valueOf(noOfDisplayedBuilds);
+        // only the page asks for the form, so every render of the page is recorded once
+        final PipelineMetrics.Render render = PipelineMetrics.get().startRender(getViewName(), "getBuildPipelineForm"); //$NON-NLS-1$
+        BuildPipelineForm form = null;
+        try {
+            final int maxNoOfDisplayBuilds = Integer.valueOf(noOfDisplayedBuilds);
+
+            // views showing the same pipeline share their forms
+            final Object gridKey = gridBuilder.getCacheKey(this);
+            final List<Object> cacheKey = Arrays.<Object>asList((gridKey == null) ? gridBuilder : gridKey, maxNoOfDisplayBuilds);
+            final BuildPipelineFormCache cache = (gridKey == null) ? getFormCache() : BuildPipelineFormCache.getShared(cacheKey);
+            form = cache.get(cacheKey);
+            if (form != null) {
+                // the view that computed the form may lay out fewer instances up front
+                form.getBuildGrids(0, getBuildGridPageSize());
+                rememberRenderedForm(form);
+                render.lap("cache"); //$NON-NLS-1$
+                return form;
+            }
+
+            // read before building so that changes made while we are building invalidate the result
+            final long revision = ProjectRevisions.get().getRevision();
+            final ProjectGrid project = gridBuilder.build(this);
+            render.lap("projectGrid"); //$NON-NLS-1$
+            if (project.isEmpty()) {
+                return null;
+            }
+            form = new BuildPipelineForm(project, maxNoOfDisplayBuilds, getBuildGridPageSize());
+            render.lap("buildGrids"); //$NON-NLS-1$
+            cache.put(cacheKey, revision, form);
+            rememberRenderedForm(form);
+            return form;
+        } finally {
+            render.stop((form == null) ? 0 : form.getCellCount());
+        }
+    }
+
+    /**
+     * @return how many instances of the pipeline are laid out with the page, see
+     *         {@link #doPipelineGroups(StaplerRequest, StaplerResponse)}
+     */
+    public int getBuildGridPageSize() {
+        return BUILD_GRID_PAGE_SIZE;
+    }
 
-        final ProjectGrid project = gridBuilder.build(this);
-        if (project.isEmpty()) {
-            return null;
+    /**
+     * @return true if browsers can reach this view at {@link #getUrl()}, so that its pages can poll for updates with plain GETs; false
+     *         if the view is only rendered into another page and can only be reached through its bound proxy.
+     */
+    public boolean isReachableByUrl() {
+        return true;
+    }
+
+    /**
+     * @return prefix of the DOM ids of the cards of this rendering of the view, so that the same pipeline can be shown twice on a
+     *         page, e.g. by a view and a portlet, without its cards sharing DOM ids
+     */
+    public String newCardIdPrefix() {
+        return CardIds.view(getViewName());
+    }
+
+    /**
+     * Renders the next page of pipeline instances of a form, for the browser to append as the user scrolls down.
+     *
+     * @param req
+     *            Stapler Request, with the id of the rendered form in "formId", the number of instances the browser already has in
+     *            "offset" and the prefix of the DOM ids of its cards in "cardPrefix"
+     * @param rsp
+     *            Stapler Response
+     * @throws IOException
+     *             IO Exception
+     * @throws ServletException
+     *             Servlet Exception
+     */
+    public void doPipelineGroups(final StaplerRequest req, final StaplerResponse rsp) throws IOException, ServletException {
+        final BuildPipelineForm form = getRenderedForm(Long.parseLong(req.getParameter("formId"))); //$NON-NLS-1$
+        if (form == null) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        final String cardPrefix = req.getParameter("cardPrefix"); //$NON-NLS-1$
+        if (!CardIds.isViewPrefix(cardPrefix)) {
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST);
+            return;
+        }
+        final PipelineMetrics.Render render = PipelineMetrics.get().startRender(getViewName(), "doPipelineGroups"); //$NON-NLS-1$
+        final int offset = Integer.parseInt(req.getParameter("offset")); //$NON-NLS-1$
+        final String stamp = getEntityTag(form);
+        if (isNotModified(req, rsp, (stamp == null) ? null : stamp + '-' + offset)) {
+            return;
+        }
+        final List<BuildGrid> buildGrids = form.getBuildGrids(offset, getBuildGridPageSize());
+        render.lap("buildGrids"); //$NON-NLS-1$
+        req.setAttribute("buildPipelineForm", form); //$NON-NLS-1$
+        req.setAttribute("buildGrids", buildGrids); //$NON-NLS-1$
+        req.setAttribute("cardPrefix", cardPrefix); //$NON-NLS-1$
+        req.getView(this, "pipelineGroups.jelly").forward(req, rsp); //$NON-NLS-1$
+        render.lap("jelly"); //$NON-NLS-1$
+        render.stop(BuildPipelineForm.countCells(buildGrids));
+    }
+
+    /**
+     * @return the latest revision of {@link ProjectRevisions}. Browsers start polling for updates from here.
+     */
+    public long getLatestRevision() {
+        return ProjectRevisions.get().getRevision();
+    }
+
+    /**
+     * Collects, in one response, the build cards of a rendered form that changed since the browser last asked. This replaces polling
+     * each card on its own. Browsers get the cards rendered, see {@link #renderBuildCardUpdates(long, long, String, String, String)}.
+     *
+     * @param formId
+     *            id of the {@link BuildPipelineForm} the browser rendered
+     * @param sinceRevision
+     *            the revision returned by the previous call, or {@link #getLatestRevision()} at render time
+     * @param tickets
+     *            JSON object of card id -> {@link BuildTicket} of a build the browser has just scheduled for that card
+     * @param shown
+     *            JSON object of card id -> number of the build the browser shows on that card instead of the build of the card, as it
+     *            has scheduled that build itself
+     * @return JSON with the new revision, the changed build cards, the cards whose scheduled builds have started with the numbers of
+     *         those builds ("started") and the changed project cards, or a request to reload the page if the form is no longer known.
+     */
+    public String getBuildCardUpdates(final long formId, final long sinceRevision, final String tickets, final String shown) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            return collectBuildCardUpdates(formId, sinceRevision, tickets, shown).toJSON();
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "getBuildCardUpdates", started); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * {@link #getBuildCardUpdates(long, long, String, String)} rendered as HTML for the browser to swap in: every changed card is
+     * rendered by buildCard.jelly or projectCard.jelly, the same pages that render the cards when the view is shown.
+     *
+     * @param formId
+     *            id of the {@link BuildPipelineForm} the browser rendered
+     * @param sinceRevision
+     *            the revision returned by the previous call, or {@link #getLatestRevision()} at render time
+     * @param tickets
+     *            see {@link #getBuildCardUpdates(long, long, String, String)}
+     * @param shown
+     *            see {@link #getBuildCardUpdates(long, long, String, String)}
+     * @param cardPrefix
+     *            prefix of the DOM ids of the cards on the page, see {@link #newCardIdPrefix()}
+     * @return the updates, rendered by buildCardUpdates.jelly
+     */
+    @JavaScriptMethod
+    public HttpResponse renderBuildCardUpdates(final long formId, final long sinceRevision, final String tickets, final String shown,
+            final String cardPrefix) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            return renderBuildCardUpdates(collectBuildCardUpdates(formId, sinceRevision, tickets, shown), cardPrefix);
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "renderBuildCardUpdates", started); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @param updates
+     *            the cards to render
+     * @param cardPrefix
+     *            prefix of the DOM ids of the cards on the page
+     * @return a response rendering the updates with buildCardUpdates.jelly
+     */
+    private HttpResponse renderBuildCardUpdates(final BuildCardUpdates updates, final String cardPrefix) {
+        return new HttpResponse() {
+            public void generateResponse(final StaplerRequest req, final StaplerResponse rsp, final Object node) throws IOException,
+                    ServletException {
+                if (!CardIds.isViewPrefix(cardPrefix)) {
+                    rsp.sendError(StaplerResponse.SC_BAD_REQUEST);
+                    return;
+                }
+                req.setAttribute("updates", updates); //$NON-NLS-1$
+                req.setAttribute("cardPrefix", cardPrefix); //$NON-NLS-1$
+                req.getView(BuildPipelineView.this, "buildCardUpdates.jelly").forward(req, rsp); //$NON-NLS-1$
+            }
+        };
+    }
+
+    /**
+     * @param formId
+     *            id of the {@link BuildPipelineForm} the browser rendered
+     * @param sinceRevision
+     *            the revision returned by the previous call
+     * @param tickets
+     *            see {@link #getBuildCardUpdates(long, long, String, String)}
+     * @param shown
+     *            see {@link #getBuildCardUpdates(long, long, String, String)}
+     * @return the cards of the form that changed since the revision, as the browser shows them
+     */
+    private BuildCardUpdates collectBuildCardUpdates(final long formId, final long sinceRevision, final String tickets,
+            final String shown) {
+        final long revision = ProjectRevisions.get().getRevision();
+        final BuildPipelineForm form = getRenderedForm(formId);
+        if (form == null) {
+            return BuildCardUpdates.RELOAD;
+        }
+
+        final JSONObject watched = parseCardMap(tickets);
+        final Map<String, Integer> started = new LinkedHashMap<String, Integer>();
+        final List<BuildForm> builds = new ArrayList<BuildForm>();
+        for (final BuildForm shownCard : getShownBuildForms(form, shown)) {
+            BuildForm card = shownCard;
+            boolean changed = false;
+            final Object ticket = watched.opt(card.getId());
+            if (ticket instanceof Number) {
+                final AbstractBuild<?, ?> newBuild = BuildTicket.findBuild(card.getProject(), ((Number) ticket).longValue());
+                if (newBuild != null) {
+                    // only this browser follows the build it has scheduled, the shared card stays as it is
+                    card = card.showingBuild(newBuild);
+                    changed = card != shownCard;
+                    started.put(card.getId(), newBuild.getNumber());
+                }
+            }
+            if (card.isChangedSince(sinceRevision)) {
+                card.refresh();
+                changed = true;
+            }
+            if (changed) {
+                builds.add(card);
+            }
+        }
+
+        final List<ProjectForm> projects = new ArrayList<ProjectForm>();
+        if (showPipelineDefinitionHeader) {
+            final ProjectRevisions revisions = ProjectRevisions.get();
+            for (final ProjectForm projectForm : form.getProjectForms()) {
+                if (revisions.getRevision(projectForm.getFullName()) > sinceRevision) {
+                    projects.add(projectForm);
+                }
+            }
+        }
+        return new BuildCardUpdates(revision, builds, started, projects);
+    }
+
+    /**
+     * @param form
+     *            a rendered form
+     * @param shown
+     *            see {@link #getBuildCardUpdates(long, long, String, String)}
+     * @return the build cards of the form as one browser shows them: copies showing the builds it has scheduled take the place of
+     *         the cards it scheduled them for.
+     */
+    private static List<BuildForm> getShownBuildForms(final BuildPipelineForm form, final String shown) {
+        final JSONObject shownBuilds = parseCardMap(shown);
+        if (shownBuilds.isEmpty()) {
+            return form.getBuildForms();
+        }
+        final List<BuildForm> cards = new ArrayList<BuildForm>();
+        for (final BuildForm buildForm : form.getBuildForms()) {
+            BuildForm card = buildForm;
+            final Object number = shownBuilds.opt(buildForm.getId());
+            if (number instanceof Number) {
+                final AbstractBuild<?, ?> build = buildForm.getProject().getBuildByNumber(((Number) number).intValue());
+                if (build != null) {
+                    card = buildForm.showingBuild(build);
+                }
+            }
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    /**
+     * @param cards
+     *            JSON object keyed by card id, as sent by the browser; null or empty if there is none
+     * @return the parsed object
+     */
+    private static JSONObject parseCardMap(final String cards) {
+        return JSONObject.fromObject((Util.fixEmpty(cards) == null) ? "{}" : cards); //$NON-NLS-1$
+    }
+
+    /**
+     * @param cards
+     *            build cards
+     * @return true if any of the cards shows a build in progress
+     */
+    private static boolean isAnyBuilding(final List<BuildForm> cards) {
+        for (final BuildForm card : cards) {
+            if (card.isBuilding()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Plain GET flavour of {@link #renderBuildCardUpdates(long, long, String, String, String)}, which answers 304 Not Modified while
+     * nothing shown by the form changes, so that idle pages cost next to nothing to keep up to date.
+     *
+     * @param req
+     *            Stapler Request, with the parameters of {@link #renderBuildCardUpdates(long, long, String, String, String)} in
+     *            "formId", "since", "tickets", "shown" and "cardPrefix"
+     * @param rsp
+     *            Stapler Response
+     * @throws IOException
+     *             IO Exception
+     * @throws ServletException
+     *             Servlet Exception
+     */
+    public void doBuildCardUpdates(final StaplerRequest req, final StaplerResponse rsp) throws IOException, ServletException {
+        final long formId = Long.parseLong(req.getParameter("formId")); //$NON-NLS-1$
+        final long sinceRevision = Long.parseLong(req.getParameter("since")); //$NON-NLS-1$
+        final String tickets = Util.fixEmpty(req.getParameter("tickets")); //$NON-NLS-1$
+        final String shown = Util.fixEmpty(req.getParameter("shown")); //$NON-NLS-1$
+        final BuildPipelineForm form = getRenderedForm(formId);
+        // cards waiting for a scheduled build are looked up on every call, and so are scheduled builds in progress, which the entity
+        // tag of the shared form knows nothing about
+        final boolean watching = !parseCardMap(tickets).isEmpty() || (form != null && isAnyBuilding(getShownBuildForms(form, shown)));
+        if (form != null && !watching && isNotModified(req, rsp, getEntityTag(form))) {
+            return;
+        }
+        final String cardPrefix = req.getParameter("cardPrefix"); //$NON-NLS-1$
+        renderBuildCardUpdates(formId, sinceRevision, tickets, shown, cardPrefix).generateResponse(req, rsp, this);
+    }
+
+    /**
+     * Push flavour of {@link #renderBuildCardUpdates(long, long, String, String, String)}: holds on to the request until one of the
+     * projects of the form changes, so that browsers are told about builds starting and completing as they happen instead of polling.
+     * While a card is building or the browser waits for a build it has just scheduled, the request returns after the refresh frequency
+     * at the latest so that progress keeps moving.
+     *
+     * @param formId
+     *            id of the {@link BuildPipelineForm} the browser rendered
+     * @param sinceRevision
+     *            the revision returned by the previous call, or {@link #getLatestRevision()} at render time
+     * @param tickets
+     *            JSON object of card id -> {@link BuildTicket} of a build the browser has just scheduled for that card
+     * @param shown
+     *            JSON object of card id -> number of the build the browser shows on that card instead of the build of the card
+     * @param cardPrefix
+     *            prefix of the DOM ids of the cards on the page, see {@link #newCardIdPrefix()}
+     * @return see {@link #renderBuildCardUpdates(long, long, String, String, String)}
+     */
+    @JavaScriptMethod
+    public HttpResponse waitForBuildCardUpdates(final long formId, final long sinceRevision, final String tickets, final String shown,
+            final String cardPrefix) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            final BuildPipelineForm form = getRenderedForm(formId);
+            if (form != null) {
+                final ProjectRevisions revisions = ProjectRevisions.get();
+                final Set<String> projects = new HashSet<String>();
+                for (final ProjectForm projectForm : form.getProjectForms()) {
+                    projects.add(projectForm.getFullName());
+                }
+                // subscribe before looking at the revisions, so that no change can slip in between
+                final ProjectRevisions.Subscription subscription = revisions.subscribe(projects);
+                try {
+                    boolean changed = false;
+                    for (final String project : projects) {
+                        changed |= revisions.getRevision(project) > sinceRevision;
+                    }
+                    final boolean building = !parseCardMap(tickets).isEmpty() || isAnyBuilding(getShownBuildForms(form, shown));
+                    if (!changed) {
+                        final Set<String> changes = subscription.await(building ? getRefreshFrequencyInMillis() : PUSH_TIMEOUT);
+                        LOGGER.finer("Pushing build card updates of " + getViewName() + " for " + changes); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    subscription.close();
+                }
+            }
+            return renderBuildCardUpdates(collectBuildCardUpdates(formId, sinceRevision, tickets, shown), cardPrefix);
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "waitForBuildCardUpdates", started); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Lays out the downstream builds of a card that was left truncated by the grid builder. The browser reloads the page afterwards.
+     *
+     * @param formId
+     *            id of the {@link BuildPipelineForm} the browser rendered
+     * @param buildCardId
+     *            id of the truncated {@link BuildForm}
+     */
+    @JavaScriptMethod
+    public void expandBuildCard(final long formId, final String buildCardId) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            final BuildPipelineForm form = getRenderedForm(formId);
+            if (form == null) {
+                return;
+            }
+            for (final BuildForm buildForm : form.getBuildForms()) {
+                if (buildForm.getId().equals(buildCardId)) {
+                    synchronized (this) {
+                        if (expandedBuildCards == null) {
+                            expandedBuildCards = new HashSet<String>();
+                        }
+                        expandedBuildCards.add(buildForm.getExpandKey());
+                    }
+                    getFormCache().clear();
+                    return;
+                }
+            }
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "expandBuildCard", started); //$NON-NLS-1$
         }
-        return new BuildPipelineForm(
-                project,
-                Iterables.limit(project.builds(), maxNoOfDisplayBuilds));
+    }
+
+    /**
+     * @return keys of the build cards users asked to see past the layout budget of the grid builder, see
+     *         {@link BuildForm#getExpandKey()}
+     */
+    public synchronized Set<String> getExpandedBuildCards() {
+        if (expandedBuildCards == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<String>(expandedBuildCards);
+    }
+
+    /**
+     * Computes a version stamp of what a form shows: it changes whenever a build of one of the projects of the form starts, completes
+     * or is deleted, or one of the projects is reconfigured, see {@link ProjectRevisions}. Reconfiguring the view changes the stamp
+     * as well, even though the form may be shared with other views and stay the same. The stamp also depends on the user, as what
+     * they may do changes the cards.
+     *
+     * @param form
+     *            a form
+     * @return the stamp, or null if the form shows a build in progress, whose progress moves on by itself, or a pipeline instance that is
+     *         still being laid out.
+     */
+    private String getEntityTag(final BuildPipelineForm form) {
+        for (final BuildGrid buildGrid : form.getBuildGrids()) {
+            if (buildGrid.isPending()) {
+                return null;
+            }
+        }
+        for (final BuildForm buildForm : form.getBuildForms()) {
+            if (buildForm.isBuilding()) {
+                return null;
+            }
+        }
+        final ProjectRevisions revisions = ProjectRevisions.get();
+        long revision = 0;
+        for (final ProjectForm projectForm : form.getProjectForms()) {
+            revision = Math.max(revision, revisions.getRevision(projectForm.getFullName()));
+        }
+        final String user = Jenkins.getAuthentication().getName();
+        return form.getId() + "-" + getConfigVersion() + '-' + revision + '-' + Integer.toHexString(user.hashCode()); //$NON-NLS-1$
+    }
+
+    /**
+     * Handles a conditional GET.
+     *
+     * @param req
+     *            Stapler Request
+     * @param rsp
+     *            Stapler Response
+     * @param stamp
+     *            version stamp of the current response, null if it cannot have one
+     * @return true if the browser already has the current response, which has been answered with 304 Not Modified.
+     */
+    private static boolean isNotModified(final StaplerRequest req, final StaplerResponse rsp, final String stamp) {
+        if (stamp == null) {
+            return false;
+        }
+        final String entityTag = '"' + stamp + '"';
+        rsp.setHeader("ETag", entityTag); //$NON-NLS-1$
+        final String ifNoneMatch = req.getHeader("If-None-Match"); //$NON-NLS-1$
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(entityTag))) { //$NON-NLS-1$
+            rsp.setStatus(StaplerResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param formId
+     *            id of a form
+     * @return the form, or null if it has not been rendered recently.
+     */
+    private synchronized BuildPipelineForm getRenderedForm(final long formId) {
+        return (renderedForms == null) ? null : renderedForms.get(formId);
+    }
+
+    /**
+     * @param form
+     *            a form that is about to be rendered
+     */
+    private synchronized void rememberRenderedForm(final BuildPipelineForm form) {
+        if (renderedForms == null) {
+            renderedForms = new LinkedHashMap<Long, BuildPipelineForm>(MAX_RENDERED_FORMS, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Long, BuildPipelineForm> eldest) {
+                    return size() > MAX_RENDERED_FORMS;
+                }
+            };
+        }
+        renderedForms.put(form.getId(), form);
+    }
+
+    /**
+     * @return the cache of the last computed {@link BuildPipelineForm}, created on first use.
+     */
+    private synchronized BuildPipelineFormCache getFormCache() {
+        if (formCache == null) {
+            formCache = new BuildPipelineFormCache();
+        }
+        return formCache;
     }
 
     /**
@@ -389,64 +948,250 @@ public class BuildPipelineView extends View {
      *            project that is triggered
      * @param upstreamProjectName
      *            upstream project
-     * @return next build number that has been scheduled
+     * @return the {@link BuildTicket} of the scheduled build, see {@link #getBuildStatus(String, long)}
      */
     @JavaScriptMethod
-    public int triggerManualBuild(final Integer upstreamBuildNumber, final String triggerProjectName, final String upstreamProjectName) {
-        final AbstractProject<?, ?> triggerProject = (AbstractProject<?, ?>) super.getJob(triggerProjectName);
-        final AbstractProject<?, ?> upstreamProject = (AbstractProject<?, ?>) super.getJob(upstreamProjectName);
+    public long triggerManualBuild(final Integer upstreamBuildNumber, final String triggerProjectName, final String upstreamProjectName) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            final AbstractProject<?, ?> triggerProject = (AbstractProject<?, ?>) super.getJob(triggerProjectName);
+            final AbstractProject<?, ?> upstreamProject = (AbstractProject<?, ?>) super.getJob(upstreamProjectName);
 
-        final AbstractBuild<?, ?> upstreamBuild = retrieveBuild(upstreamBuildNumber, upstreamProject);
+            final AbstractBuild<?, ?> upstreamBuild = retrieveBuild(upstreamBuildNumber, upstreamProject);
 
-        // Get parameters from upstream build
-        if (upstreamBuild != null) {
-            LOGGER.fine("Getting parameters from upstream build " + upstreamBuild.getExternalizableId()); //$NON-NLS-1$
+            // Get parameters from upstream build
+            if (upstreamBuild != null) {
+                LOGGER.fine("Getting parameters from upstream build " + upstreamBuild.getExternalizableId()); //$NON-NLS-1$
+            }
+            Action buildParametersAction = null;
+            if (upstreamBuild != null) {
+                buildParametersAction = BuildUtil.getAllBuildParametersAction(upstreamBuild, triggerProject);
+            }
+
+            return triggerBuild(triggerProject, upstreamBuild, buildParametersAction);
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "triggerManualBuild", started); //$NON-NLS-1$
         }
-        Action buildParametersAction = null;
-        if (upstreamBuild != null) {
-            buildParametersAction = BuildUtil.getAllBuildParametersAction(upstreamBuild, triggerProject);
+    }
+
+    /**
+     * Triggers many manual builds in one request, e.g. to promote a release through a number of pipelines at once.
+     *
+     * Projects, upstream builds and their parameters are resolved once per request however many triggers share them, before any build
+     * is put in the queue. The queue is not held across the builds, each of them takes its lock on its own. The actions of the upstream
+     * builds' triggers other than parameters are evaluated again for every build, as an action belongs to the one build it is attached
+     * to.
+     *
+     * @param triggers
+     *            JSON array of objects with the same members as the parameters of
+     *            {@link #triggerManualBuild(Integer, String, String)}: "upstreamBuildNumber", "triggerProjectName" and
+     *            "upstreamProjectName", plus an optional "id" that is passed back in the result
+     * @return JSON array with one result per trigger, in the same order: "id", "triggerProjectName", "scheduled" and either
+     *         "ticket", see {@link BuildTicket}, or "error"
+     */
+    @JavaScriptMethod
+    public String triggerManualBuilds(final String triggers) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            final JSONArray requests = JSONArray.fromObject(triggers);
+            final Map<String, AbstractProject<?, ?>> projects = new HashMap<String, AbstractProject<?, ?>>();
+            final Map<String, AbstractBuild<?, ?>> upstreamBuilds = new HashMap<String, AbstractBuild<?, ?>>();
+            final Map<AbstractBuild<?, ?>, ParametersAction> upstreamParameters = new HashMap<AbstractBuild<?, ?>, ParametersAction>();
+            final Map<AbstractBuild<?, ?>, TriggerActions> upstreamTriggerActions = new HashMap<AbstractBuild<?, ?>, TriggerActions>();
+            final Map<AbstractProject<?, ?>, ParametersAction> defaultParameters = new HashMap<AbstractProject<?, ?>, ParametersAction>();
+
+            // resolve everything first, so that scheduling is not interleaved with computing build parameters
+            final String[] errors = new String[requests.size()];
+            final AbstractProject<?, ?>[] triggerProjects = new AbstractProject<?, ?>[requests.size()];
+            final AbstractBuild<?, ?>[] triggerUpstreamBuilds = new AbstractBuild<?, ?>[requests.size()];
+            final TriggerActions[] triggerActionsOf = new TriggerActions[requests.size()];
+            for (int i = 0; i < requests.size(); i++) {
+                final JSONObject request = requests.getJSONObject(i);
+                final String triggerProjectName = request.optString("triggerProjectName"); //$NON-NLS-1$
+                final AbstractProject<?, ?> triggerProject = getProject(triggerProjectName, projects);
+                if (triggerProject == null) {
+                    errors[i] = "No such project: " + triggerProjectName; //$NON-NLS-1$
+                    continue;
+                }
+                if (!triggerProject.hasPermission(Item.BUILD)) {
+                    errors[i] = "No permission to build " + triggerProjectName; //$NON-NLS-1$
+                    continue;
+                }
+                triggerProjects[i] = triggerProject;
+
+                final String upstreamProjectName = Util.fixEmpty(request.optString("upstreamProjectName")); //$NON-NLS-1$
+                if (upstreamProjectName == null) {
+                    continue;
+                }
+                final AbstractProject<?, ?> upstreamProject = getProject(upstreamProjectName, projects);
+                if (upstreamProject == null) {
+                    errors[i] = "No such project: " + upstreamProjectName; //$NON-NLS-1$
+                    continue;
+                }
+                final int upstreamBuildNumber = request.optInt("upstreamBuildNumber"); //$NON-NLS-1$
+                final String upstreamKey = upstreamProjectName + '#' + upstreamBuildNumber;
+                AbstractBuild<?, ?> upstreamBuild = upstreamBuilds.get(upstreamKey);
+                if (upstreamBuild == null && !upstreamBuilds.containsKey(upstreamKey)) {
+                    upstreamBuild = retrieveBuild(upstreamBuildNumber, upstreamProject);
+                    upstreamBuilds.put(upstreamKey, upstreamBuild);
+                    if (upstreamBuild != null) {
+                        upstreamParameters.put(upstreamBuild, BuildUtil.getBuildParametersAction(upstreamBuild));
+                    }
+                }
+                if (upstreamBuild == null) {
+                    // scheduling the build without its upstream build would drop its cause and parameters
+                    errors[i] = "No such build: " + upstreamKey; //$NON-NLS-1$
+                    continue;
+                }
+                triggerUpstreamBuilds[i] = upstreamBuild;
+                if (!defaultParameters.containsKey(triggerProject)) {
+                    defaultParameters.put(triggerProject, ProjectUtil.getProjectParametersAction(triggerProject));
+                }
+                TriggerActions triggerActions = upstreamTriggerActions.remove(upstreamBuild);
+                if (triggerActions == null) {
+                    triggerActions = getTriggerActions(upstreamBuild);
+                }
+                // trigger parameters are merged into a new action for every build, so only they can be shared between builds
+                if (triggerActions.actions.isEmpty()) {
+                    upstreamTriggerActions.put(upstreamBuild, triggerActions);
+                }
+                triggerActionsOf[i] = triggerActions;
+            }
+
+            final JSONWriter json = new JSONWriter();
+            json.array();
+            for (int i = 0; i < requests.size(); i++) {
+                final JSONObject request = requests.getJSONObject(i);
+                json.object();
+                json.member("id", request.has("id") ? request.getString("id") : null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                json.member("triggerProjectName", request.optString("triggerProjectName")); //$NON-NLS-1$ //$NON-NLS-2$
+                json.member("scheduled", errors[i] == null); //$NON-NLS-1$
+                if (errors[i] == null) {
+                    final AbstractBuild<?, ?> upstreamBuild = triggerUpstreamBuilds[i];
+                    List<ParametersAction> buildParameters = Collections.emptyList();
+                    TriggerActions triggerActions = new TriggerActions();
+                    if (upstreamBuild != null) {
+                        buildParameters = Arrays.asList(upstreamParameters.get(upstreamBuild),
+                                defaultParameters.get(triggerProjects[i]));
+                        triggerActions = triggerActionsOf[i];
+                    }
+                    final long ticket = triggerBuild(triggerProjects[i], upstreamBuild, buildParameters, triggerActions);
+                    json.member("ticket", ticket); //$NON-NLS-1$
+                } else {
+                    json.member("error", errors[i]); //$NON-NLS-1$
+                }
+                json.endObject();
+            }
+            json.endArray();
+            return json.toString();
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "triggerManualBuilds", started); //$NON-NLS-1$
         }
+    }
 
-        return triggerBuild(triggerProject, upstreamBuild, buildParametersAction);
+    /**
+     * @param name
+     *            name of a project
+     * @param projects
+     *            projects resolved so far in the current request, by name
+     * @return the project, possibly null
+     */
+    private AbstractProject<?, ?> getProject(final String name, final Map<String, AbstractProject<?, ?>> projects) {
+        AbstractProject<?, ?> project = projects.get(name);
+        if (project == null && !projects.containsKey(name)) {
+            final Item item = super.getJob(name);
+            project = (item instanceof AbstractProject) ? (AbstractProject<?, ?>) item : null;
+            projects.put(name, project);
+        }
+        return project;
     }
 
     /**
      * @param triggerProjectName
      *            the triggerProjectName
-     * @return the number of re-tried build
+     * @return the {@link BuildTicket} of the re-tried build, see {@link #getBuildStatus(String, long)}
      */
     @JavaScriptMethod
-    public int retryBuild(final String triggerProjectName) {
-        LOGGER.fine("Retrying build again: " + triggerProjectName); //$NON-NLS-1$
-        final AbstractProject<?, ?> triggerProject = (AbstractProject<?, ?>) super.getJob(triggerProjectName);
-        triggerProject.scheduleBuild(new MyUserIdCause());
-
-        return triggerProject.getNextBuildNumber();
+    public long retryBuild(final String triggerProjectName) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            LOGGER.fine("Retrying build again: " + triggerProjectName); //$NON-NLS-1$
+            final AbstractProject<?, ?> triggerProject = (AbstractProject<?, ?>) super.getJob(triggerProjectName);
+            final BuildTicket ticket = BuildTicket.issue();
+            triggerProject.scheduleBuild2(triggerProject.getQuietPeriod(), new MyUserIdCause(), ticket);
+
+            return ticket.getId();
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "retryBuild", started); //$NON-NLS-1$
+        }
     }
 
     /**
+     * Schedules a build again, with the same actions. Returns as soon as the build is queued, the browser follows it with
+     * {@link #getBuildCardUpdates(long, long, String, String)} or {@link #getBuildStatus(String, long)}.
+     *
      * @param externalizableId
      *            the externalizableId
-     * @return the number of re-run build
+     * @return the {@link BuildTicket} of the re-run build
      */
     @JavaScriptMethod
-    public int rerunBuild(final String externalizableId) {
-        LOGGER.fine("Running build again: " + externalizableId); //$NON-NLS-1$
-        final AbstractBuild<?, ?> triggerBuild = (AbstractBuild<?, ?>) Run.fromExternalizableId(externalizableId);
-        final AbstractProject<?, ?> triggerProject = triggerBuild.getProject();
-        final Future<?> future = triggerProject.scheduleBuild2(triggerProject.getQuietPeriod(), new MyUserIdCause(),
-                removeUserIdCauseActions(triggerBuild.getActions()));
-
-        AbstractBuild<?, ?> result = triggerBuild;
+    public long rerunBuild(final String externalizableId) {
+        final long started = PipelineMetrics.get().start();
         try {
-            result = (AbstractBuild<?, ?>) future.get();
-        } catch (final InterruptedException e) {
-            e.printStackTrace();
-        } catch (final ExecutionException e) {
-            e.printStackTrace();
+            LOGGER.fine("Running build again: " + externalizableId); //$NON-NLS-1$
+            final AbstractBuild<?, ?> triggerBuild = (AbstractBuild<?, ?>) Run.fromExternalizableId(externalizableId);
+            final AbstractProject<?, ?> triggerProject = triggerBuild.getProject();
+            final List<Action> actions = removeUserIdCauseActions(triggerBuild.getActions());
+            final BuildTicket ticket = BuildTicket.issue();
+            actions.add(ticket);
+            triggerProject.scheduleBuild2(triggerProject.getQuietPeriod(), new MyUserIdCause(),
+                    actions.toArray(new Action[actions.size()]));
+
+            return ticket.getId();
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "rerunBuild", started); //$NON-NLS-1$
         }
+    }
 
-        return result.getNumber();
+    /**
+     * Tells how far a build scheduled by {@link #rerunBuild(String)}, {@link #retryBuild(String)} or
+     * {@link #triggerManualBuild(Integer, String, String)} has got.
+     *
+     * @param projectName
+     *            name of the project of the build
+     * @param ticket
+     *            the {@link BuildTicket} returned when the build was scheduled
+     * @return JSON with the ticket, the number of the build (null while it is queued) and its status, as shown on build cards: PENDING
+     *         while the queue item of the ticket waits, BUILDING, then the result. The status is null if the ticket is neither queued
+     *         nor found on one of the newest builds, e.g. because the item was cancelled.
+     */
+    @JavaScriptMethod
+    public String getBuildStatus(final String projectName, final long ticket) {
+        final long started = PipelineMetrics.get().start();
+        try {
+            final Item item = super.getJob(projectName);
+            Integer number = null;
+            String status = null;
+            if (item instanceof AbstractProject) {
+                final AbstractProject<?, ?> project = (AbstractProject<?, ?>) item;
+                final AbstractBuild<?, ?> build = BuildTicket.findBuild(project, ticket);
+                if (build != null) {
+                    number = build.getNumber();
+                    // a build has no result until it is done, and for a moment after it stopped building
+                    final Result result = build.getResult();
+                    status = (build.isBuilding() || result == null) ? HudsonResult.BUILDING.toString()
+                            : HudsonResult.values()[result.ordinal].toString();
+                } else if (BuildTicket.findQueued(project, ticket) != null) {
+                    status = HudsonResult.PENDING.toString();
+                }
+            }
+            final JSONWriter json = new JSONWriter();
+            json.object().member("ticket", ticket).member("number", number); //$NON-NLS-1$ //$NON-NLS-2$
+            json.member("status", status).endObject(); //$NON-NLS-1$
+            return json.toString();
+        } finally {
+            PipelineMetrics.get().record(getViewName(), "getBuildStatus", started); //$NON-NLS-1$
+        }
     }
 
     /**
@@ -458,20 +1203,9 @@ public class BuildPipelineView extends View {
      *            - AbstractProject
      * @return The AbstractBuild associated with the AbstractProject and build number.
      */
-    @SuppressWarnings("unchecked")
     private AbstractBuild<?, ?> retrieveBuild(final int buildNo, final AbstractProject<?, ?> project) {
-        AbstractBuild<?, ?> build = null;
-
-        if (project != null) {
-            for (final AbstractBuild<?, ?> tmpUpBuild : (List<AbstractBuild<?, ?>>) project.getBuilds()) {
-                if (tmpUpBuild.getNumber() == buildNo) {
-                    build = tmpUpBuild;
-                    break;
-                }
-            }
-        }
-
-        return build;
+        // the project keeps the builds it has loaded, by number
+        return (project == null) ? null : project.getBuildByNumber(buildNo);
     }
 
     /**
@@ -485,67 +1219,93 @@ public class BuildPipelineView extends View {
      *            - The upstream AbstractBuild that will be used as a Cause for the triggerProject's build.
      * @param buildParametersAction
      *            - The upstream ParametersAction that will be used as an Action for the triggerProject's build.
-     * @return next build number
+     * @return the {@link BuildTicket} of the scheduled build
      */
-    private int triggerBuild(final AbstractProject<?, ?> triggerProject, final AbstractBuild<?, ?> upstreamBuild,
+    private long triggerBuild(final AbstractProject<?, ?> triggerProject, final AbstractBuild<?, ?> upstreamBuild,
             final Action buildParametersAction) {
+        final List<ParametersAction> buildParameters = (buildParametersAction instanceof ParametersAction)
+                ? Collections.singletonList((ParametersAction) buildParametersAction) : Collections.<ParametersAction>emptyList();
+        return triggerBuild(triggerProject, upstreamBuild, buildParameters, getTriggerActions(upstreamBuild));
+    }
+
+    /**
+     * Schedules a build to start, with the actions of the upstream build's trigger already computed.
+     *
+     * @param triggerProject
+     *            - Schedule a build to start on this AbstractProject
+     * @param upstreamBuild
+     *            - The upstream AbstractBuild that will be used as a Cause for the triggerProject's build.
+     * @param buildParameters
+     *            - The parameters of the triggerProject's build, later ones overriding earlier ones; the parameters of the trigger's
+     *            configs override them all
+     * @param triggerActions
+     *            - The actions of the upstream build's trigger, see {@link #getTriggerActions(AbstractBuild)}
+     * @return the {@link BuildTicket} of the scheduled build
+     */
+    private long triggerBuild(final AbstractProject<?, ?> triggerProject, final AbstractBuild<?, ?> upstreamBuild,
+            final List<ParametersAction> buildParameters, final TriggerActions triggerActions) {
         LOGGER.fine("Triggering build for project: " + triggerProject.getFullDisplayName()); //$NON-NLS-1$
         final Cause.UpstreamCause upstreamCause = (null == upstreamBuild) ? null : new Cause.UpstreamCause((Run<?, ?>) upstreamBuild);
         final List<Action> buildActions = new ArrayList<Action>();
         buildActions.add(new CauseAction(new MyUserIdCause()));
-        ParametersAction parametersAction =
-                buildParametersAction instanceof ParametersAction
-                        ? (ParametersAction) buildParametersAction : new ParametersAction();
-
-        if (upstreamBuild != null) {
-
-            final BuildPipelineTrigger trigger = upstreamBuild.getProject().getPublishersList().get(BuildPipelineTrigger.class);
+        final List<ParametersAction> parameters = new ArrayList<ParametersAction>(buildParameters);
+        parameters.addAll(triggerActions.parameters);
+        buildActions.addAll(triggerActions.actions);
+        buildActions.add(BuildUtil.mergeParameters(parameters));
+        final BuildTicket ticket = BuildTicket.issue();
+        buildActions.add(ticket);
+
+        triggerProject.scheduleBuild2(triggerProject.getQuietPeriod(), upstreamCause,
+                buildActions.toArray(new Action[buildActions.size()]));
+        return ticket.getId();
+    }
 
-            final List<AbstractBuildParameters> configs = trigger.getConfigs();
+    /**
+     * Evaluates the build parameter configs of the {@link BuildPipelineTrigger} of an upstream build's project. They only depend on the
+     * upstream build, so this is done once per upstream build.
+     *
+     * @param upstreamBuild
+     *            - The upstream build, possibly null
+     * @return the actions to add to the triggered builds
+     */
+    private TriggerActions getTriggerActions(final AbstractBuild<?, ?> upstreamBuild) {
+        final TriggerActions triggerActions = new TriggerActions();
+        if (upstreamBuild == null) {
+            return triggerActions;
+        }
+        final BuildPipelineTrigger trigger = upstreamBuild.getProject().getPublishersList().get(BuildPipelineTrigger.class);
+        if (trigger == null) {
+            return triggerActions;
+        }
 
-            for (final AbstractBuildParameters config : configs) {
-                try {
-                    final Action action = config.getAction(upstreamBuild, new LogTaskListener(LOGGER, Level.INFO));
-                    if (action instanceof ParametersAction) {
-                        parametersAction = mergeParameters(parametersAction, (ParametersAction) action);
-                    } else {
-                        buildActions.add(action);
-                    }
-                } catch (final IOException e) {
-                    LOGGER.log(Level.SEVERE, "I/O exception while adding build parameter", e); //$NON-NLS-1$
-                } catch (final InterruptedException e) {
-                    LOGGER.log(Level.SEVERE, "Adding build parameter was interrupted", e); //$NON-NLS-1$
-                } catch (final AbstractBuildParameters.DontTriggerException e) {
-                    LOGGER.log(Level.FINE, "Not triggering : " + config); //$NON-NLS-1$
+        for (final AbstractBuildParameters config : trigger.getConfigs()) {
+            try {
+                final Action action = config.getAction(upstreamBuild, new LogTaskListener(LOGGER, Level.INFO));
+                if (action instanceof ParametersAction) {
+                    triggerActions.parameters.add((ParametersAction) action);
+                } else {
+                    triggerActions.actions.add(action);
                 }
+            } catch (final IOException e) {
+                LOGGER.log(Level.SEVERE, "I/O exception while adding build parameter", e); //$NON-NLS-1$
+            } catch (final InterruptedException e) {
+                LOGGER.log(Level.SEVERE, "Adding build parameter was interrupted", e); //$NON-NLS-1$
+            } catch (final AbstractBuildParameters.DontTriggerException e) {
+                LOGGER.log(Level.FINE, "Not triggering : " + config); //$NON-NLS-1$
             }
         }
-
-        buildActions.add(parametersAction);
-
-        triggerProject.scheduleBuild(triggerProject.getQuietPeriod(), upstreamCause, buildActions.toArray(new Action[buildActions.size()]));
-        return triggerProject.getNextBuildNumber();
+        return triggerActions;
     }
 
     /**
-     * From parameterized trigger plugin src/main/java/hudson/plugins/parameterizedtrigger/BuildTriggerConfig.java
-     *
-     * @param base
-     *      One of the two parameters to merge.
-     * @param overlay
-     *      The other parameters to merge
-     * @return
-     *      Result of the merge.
+     * Actions the {@link BuildPipelineTrigger} of an upstream build adds to the builds it triggers.
      */
-    private static ParametersAction mergeParameters(final ParametersAction base, final ParametersAction overlay) {
-        final LinkedHashMap<String, ParameterValue> params = new LinkedHashMap<String, ParameterValue>();
-        for (final ParameterValue param : base.getParameters()) {
-            params.put(param.getName(), param);
-        }
-        for (final ParameterValue param : overlay.getParameters()) {
-            params.put(param.getName(), param);
-        }
-        return new ParametersAction(params.values().toArray(new ParameterValue[params.size()]));
+    private static final class TriggerActions {
+        /** Parameters of the trigger's configs, in order; they are merged once, into the parameters of each triggered build. */
+        private final List<ParametersAction> parameters = new ArrayList<ParametersAction>();
+
+        /** The other actions of the trigger's configs. */
+        private final List<Action> actions = new ArrayList<Action>();
     }
 
     /**
@@ -571,7 +1331,8 @@ public class BuildPipelineView extends View {
     /**
      * Removes any UserId cause action from the given actions collection. This is used by downstream builds that inherit upstream actions.
      * The downstream build can be initiated by another user that is different from the user who initiated the upstream build, so the
-     * downstream build needs to remove the old user action inherited from upstream, and add its own.
+     * downstream build needs to remove the old user action inherited from upstream, and add its own. The {@link BuildTicket}s of the
+     * build are removed as well, they belong to the requests that scheduled it.
      *
      * @param actions
      *            a collection of build actions.
@@ -580,7 +1341,7 @@ public class BuildPipelineView extends View {
     private List<Action> removeUserIdCauseActions(final List<Action> actions) {
         final List<Action> retval = new ArrayList<Action>();
         for (final Action action : actions) {
-            if (!isUserIdCauseAction(action)) {
+            if (!isUserIdCauseAction(action) && !(action instanceof BuildTicket)) {
                 retval.add(action);
             }
         }
@@ -727,6 +1488,45 @@ public class BuildPipelineView extends View {
         this.showPipelineDefinitionHeader = showPipelineDefinitionHeader;
     }
 
+    public int getDownstreamSearchDepth() {
+        return downstreamSearchDepth;
+    }
+
+    public void setDownstreamSearchDepth(final int downstreamSearchDepth) {
+        this.downstreamSearchDepth = downstreamSearchDepth;
+    }
+
+    public boolean isDownstreamSearchSinceUpstream() {
+        return downstreamSearchSinceUpstream;
+    }
+
+    public String getDownstreamSearchSinceUpstream() {
+        return Boolean.toString(downstreamSearchSinceUpstream);
+    }
+
+    public void setDownstreamSearchSinceUpstream(final boolean downstreamSearchSinceUpstream) {
+        this.downstreamSearchSinceUpstream = downstreamSearchSinceUpstream;
+    }
+
+    /**
+     * @return how far back the histories of downstream projects are searched for the builds of the pipeline instances.
+     */
+    public DownstreamSearch getDownstreamSearch() {
+        return new DownstreamSearch(downstreamSearchDepth, downstreamSearchSinceUpstream);
+    }
+
+    public boolean isPushUpdates() {
+        return pushUpdates;
+    }
+
+    public String getPushUpdates() {
+        return Boolean.toString(pushUpdates);
+    }
+
+    public void setPushUpdates(final boolean pushUpdates) {
+        this.pushUpdates = pushUpdates;
+    }
+
     @Override
     public Collection<TopLevelItem> getItems() {
         return Hudson.getInstance().getItems();
@@ -0,0 +1,117 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Action;
+import hudson.model.Hudson;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+import hudson.model.Queue.Task;
+import hudson.model.queue.FoldableAction;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ties a build scheduled from a view to the browser that scheduled it. The ticket is added to the scheduled queue item, and from there
+ * to the build it becomes, so the browser can follow exactly that build instead of guessing its number.
+ *
+ * If the queue folds the item into one that is already waiting, the ticket is added to that item, and the browser follows the build
+ * that absorbed its request.
+ *
+ * @author Centrum Systems
+ */
+public final class BuildTicket extends InvisibleAction implements FoldableAction {
+
+    /** How many of the newest builds of a project are searched for a ticket that has left the queue. */
+    private static final int MAX_SEARCHED_BUILDS = 20;
+
+    /** Source of ticket ids. Starts at the start time, so that tickets from before a restart are not taken for new ones. */
+    private static final AtomicLong IDS = new AtomicLong(System.currentTimeMillis());
+
+    /** id of the ticket, unique to this Jenkins. */
+    private final long id;
+
+    /**
+     * @param id
+     *            id of the ticket
+     */
+    private BuildTicket(final long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return a new ticket
+     */
+    static BuildTicket issue() {
+        return new BuildTicket(IDS.incrementAndGet());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * The queue folds the item this ticket was scheduled with into one that is already waiting: follow that one instead.
+     *
+     * @param item
+     *            the waiting item
+     * @param owner
+     *            the task of the item
+     * @param otherActions
+     *            the actions the item was scheduled with
+     */
+    public void foldIntoExisting(final Queue.Item item, final Task owner, final List<Action> otherActions) {
+        item.addAction(this);
+    }
+
+    /**
+     * @param project
+     *            the project the ticket was scheduled for
+     * @param ticket
+     *            id of the ticket
+     * @return the queue item carrying the ticket, or null if the ticket is not in the queue (any more).
+     */
+    static Queue.Item findQueued(final AbstractProject<?, ?> project, final long ticket) {
+        for (final Queue.Item item : Hudson.getInstance().getQueue().getItems(project)) {
+            if (carries(item.getActions(BuildTicket.class), ticket)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param project
+     *            the project the ticket was scheduled for
+     * @param ticket
+     *            id of the ticket
+     * @return the build carrying the ticket among the newest builds of the project, or null if it has not started (yet).
+     */
+    static AbstractBuild<?, ?> findBuild(final AbstractProject<?, ?> project, final long ticket) {
+        AbstractBuild<?, ?> build = project.getLastBuild();
+        for (int i = 0; build != null && i < MAX_SEARCHED_BUILDS; i++) {
+            if (carries(build.getActions(BuildTicket.class), ticket)) {
+                return build;
+            }
+            build = build.getPreviousBuild();
+        }
+        return null;
+    }
+
+    /**
+     * @param tickets
+     *            the tickets of a queue item or build
+     * @param ticket
+     *            id of a ticket
+     * @return true if the ticket is among them
+     */
+    private static boolean carries(final List<BuildTicket> tickets, final long ticket) {
+        for (final BuildTicket candidate : tickets) {
+            if (candidate.id == ticket) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
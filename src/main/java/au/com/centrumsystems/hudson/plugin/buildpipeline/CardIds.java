@@ -0,0 +1,118 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Ids of the build and project cards, used in the DOM and to address cards from the browser.
+ *
+ * An id is derived from what the card shows and where, so the same card gets the same id on every render and on every server, and no
+ * two cards of a page share one. Project names are encoded so that ids only contain letters, digits, '_' and '-', and can be used as
+ * DOM ids and in CSS selectors as they are.
+ *
+ * Card ids leave the view out, so that views showing the same pipeline can share laid-out forms. The DOM ids of a page put the prefix
+ * of the rendered view in front of them, see {@link #view(String)}.
+ *
+ * @author Centrum Systems
+ */
+final class CardIds {
+
+    /** Hex digits of an escaped character. */
+    private static final int ESCAPE_DIGITS = 4;
+
+    /** What {@link #view(String)} returns. */
+    private static final Pattern VIEW_PREFIX = Pattern.compile("[A-Za-z0-9_]*-[0-9]+"); //$NON-NLS-1$
+
+    /** Views rendered so far, counted so that every rendered view gets its own prefix. */
+    private static final AtomicLong RENDERED_VIEWS = new AtomicLong();
+
+    /**
+     * Utility class.
+     */
+    private CardIds() {
+    }
+
+    /**
+     * @param viewName
+     *            name of the view being rendered
+     * @return prefix of the DOM ids of the cards of one rendered view. Two views or portlets showing the same pipeline on one page give
+     *         their cards the same ids, but different DOM ids.
+     */
+    static String view(final String viewName) {
+        return encode(viewName) + '-' + RENDERED_VIEWS.incrementAndGet();
+    }
+
+    /**
+     * @param prefix
+     *            a prefix sent back by the browser
+     * @return true if the prefix may have been returned by {@link #view(String)}, and can be written to the page as it is
+     */
+    static boolean isViewPrefix(final String prefix) {
+        return prefix != null && VIEW_PREFIX.matcher(prefix).matches();
+    }
+
+    /**
+     * @param fullName
+     *            full name of a project
+     * @return id of the card of the project
+     */
+    static String project(final String fullName) {
+        return encode(fullName);
+    }
+
+    /**
+     * @param fullName
+     *            full name of the project of the build
+     * @param number
+     *            number of the build, 0 for a build that has not run yet
+     * @param pipelineNumber
+     *            number of the build that started the pipeline instance
+     * @param row
+     *            row of the card in the pipeline instance
+     * @param col
+     *            column of the card in the pipeline instance
+     * @return id of the card of the build
+     */
+    static String build(final String fullName, final int number, final int pipelineNumber, final int row, final int col) {
+        return build(fullName, number, pipelineNumber) + '-' + row + '-' + col;
+    }
+
+    /**
+     * @param fullName
+     *            full name of the project of the build
+     * @param number
+     *            number of the build, 0 for a build that has not run yet
+     * @param pipelineNumber
+     *            number of the build that started the pipeline instance
+     * @return id of the card of a build that has not been placed in a grid
+     */
+    static String build(final String fullName, final int number, final int pipelineNumber) {
+        return encode(fullName) + '-' + number + '-' + pipelineNumber;
+    }
+
+    /**
+     * Keeps ASCII letters and digits, and replaces any other character by '_' and its code as 4 hex digits. No two names have the
+     * same encoding, and an encoding never contains '-'.
+     *
+     * @param name
+     *            a name
+     * @return the name, encoded
+     */
+    static String encode(final String name) {
+        final StringBuilder encoded = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                encoded.append(c);
+            } else {
+                final String code = Integer.toHexString(c);
+                encoded.append('_');
+                for (int pad = code.length(); pad < ESCAPE_DIGITS; pad++) {
+                    encoded.append('0');
+                }
+                encoded.append(code);
+            }
+        }
+        return encoded.toString();
+    }
+}
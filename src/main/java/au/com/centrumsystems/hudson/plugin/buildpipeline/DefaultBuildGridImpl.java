@@ -1,10 +1,7 @@
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
- * {@link BuildGrid} implementation backed by a sparse array.
+ * {@link BuildGrid} implementation backed by a dense array, see {@link GridCells}.
  *
  * @author Kohsuke Kawaguchi
  */
@@ -12,12 +9,7 @@ public class DefaultBuildGridImpl extends BuildGrid {
     /**
      * Actual data.
      */
-    private final Map<Integer/*row*/, Map<Integer/*height*/, BuildForm>> data = new HashMap<Integer, Map<Integer, BuildForm>>();
-
-    /**
-     * Dimension of the {@link #data}
-     */
-    private int rows, cols;
+    private final GridCells<BuildForm> data = new GridCells<BuildForm>();
 
     /**
      * Mutable, but only for the code that instantiates {@link DefaultBuildGridImpl}.
@@ -30,33 +22,29 @@ public class DefaultBuildGridImpl extends BuildGrid {
      *      The build to add. null to remove the value.
      */
     public void set(int row, int col, BuildForm p) {
-        Map<Integer, BuildForm> c = data.get(row);
-        if (c == null) {
-            c = new HashMap<Integer, BuildForm>();
-            data.put(row, c);
+        data.set(row, col, p);
+        if (p != null) {
+            p.setPosition(row, col);
         }
-        c.put(col, p);
-
-        rows = Math.max(rows, row + 1);
-        cols = Math.max(cols, col + 1);
     }
 
     @Override
     public BuildForm get(int row, int col) {
-        final Map<Integer, BuildForm> cols = data.get(row);
-        if (cols == null) {
-            return null;
-        }
-        return cols.get(col);
+        return data.get(row, col);
     }
 
     @Override
     public int getColumns() {
-        return cols;
+        return data.getColumns();
     }
 
     @Override
     public int getRows() {
-        return rows;
+        return data.getRows();
+    }
+
+    @Override
+    protected int getLastColumn(int row) {
+        return data.getLastColumn(row);
     }
 }
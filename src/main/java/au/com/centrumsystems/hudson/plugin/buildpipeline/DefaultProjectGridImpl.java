@@ -1,24 +1,16 @@
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
- * {@link ProjectGrid} backed by map.
+ * {@link ProjectGrid} backed by a dense array, see {@link GridCells}.
  *
  * @author Kohsuke Kawaguchi
  * @author Centrum Systems
  */
 public abstract class DefaultProjectGridImpl extends ProjectGrid {
     /**
-     * Actual data store is a sparse map.
-     */
-    private final Map<Integer/*row*/, Map<Integer/*height*/, ProjectForm>> data = new HashMap<Integer, Map<Integer, ProjectForm>>();
-
-    /**
-     * Dimension of the {@link #data}
+     * Actual data.
      */
-    private int rows, cols;
+    private final GridCells<ProjectForm> data = new GridCells<ProjectForm>();
 
     /**
      * Mutable, but only for {@link ProjectGridBuilder}
@@ -31,15 +23,7 @@ public abstract class DefaultProjectGridImpl extends ProjectGrid {
      *      The project to add. null to remove the value.
      */
     public void set(int row, int col, ProjectForm p) {
-        Map<Integer, ProjectForm> c = data.get(row);
-        if (c == null) {
-            c = new HashMap<Integer, ProjectForm>();
-            data.put(row, c);
-        }
-        c.put(col, p);
-
-        rows = Math.max(rows, row + 1);
-        cols = Math.max(cols, col + 1);
+        data.set(row, col, p);
     }
 
     /**
@@ -54,21 +38,22 @@ public abstract class DefaultProjectGridImpl extends ProjectGrid {
      */
     @Override
     public ProjectForm get(int row, int col) {
-        final Map<Integer, ProjectForm> cols = data.get(row);
-        if (cols == null) {
-            return null;
-        }
-        return cols.get(col);
+        return data.get(row, col);
     }
 
     @Override
     public int getColumns() {
-        return cols;
+        return data.getColumns();
     }
 
     @Override
     public int getRows() {
-        return rows;
+        return data.getRows();
+    }
+
+    @Override
+    protected int getLastColumn(int row) {
+        return data.getLastColumn(row);
     }
 
 }
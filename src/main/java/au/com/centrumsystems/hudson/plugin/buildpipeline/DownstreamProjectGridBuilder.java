@@ -1,8 +1,11 @@
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
+import au.com.centrumsystems.hudson.plugin.util.DownstreamSearch;
+import com.google.common.collect.Iterables;
 import hudson.Extension;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
+import hudson.model.DependencyGraph;
 import hudson.model.Hudson;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
@@ -16,10 +19,29 @@ import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * {@link ProjectGridBuilder} based on the upstream/downstream relationship.
@@ -27,6 +49,40 @@ import java.util.Iterator;
  * @author Kohsuke Kawaguchi
  */
 public class DownstreamProjectGridBuilder extends ProjectGridBuilder {
+    /**
+     * How many columns of downstream builds are laid out after the first build before the cards of the last column are shown
+     * truncated. Also keeps a trigger cycle from growing a pipeline instance forever.
+     */
+    private static final int MAX_DEPTH = Integer.getInteger(DownstreamProjectGridBuilder.class.getName() + ".maxDepth", 50);
+
+    /**
+     * How many rows a pipeline instance may grow to before further downstream builds are left out and their upstream card is shown
+     * truncated.
+     */
+    private static final int MAX_ROWS = Integer.getInteger(DownstreamProjectGridBuilder.class.getName() + ".maxRows", 100);
+
+    /**
+     * How many threads lay out the pipeline instances of a page concurrently. 0, the default, lays them out one after another on
+     * the request thread.
+     */
+    private static final int LAYOUT_THREADS = Integer.getInteger(DownstreamProjectGridBuilder.class.getName() + ".layoutThreads", 0);
+
+    /**
+     * How many milliseconds a page waits for its pipeline instances to be laid out concurrently. An instance that is not laid out
+     * by then is shown as its first build only, and filled in once its layout completes.
+     */
+    private static final long LAYOUT_DEADLINE = Long.getLong(DownstreamProjectGridBuilder.class.getName() + ".layoutDeadline", 5000L);
+
+    /**
+     * Lays out pipeline instances when {@link #LAYOUT_THREADS} is set, null otherwise.
+     */
+    private static final ExecutorService LAYOUT_EXECUTOR = (LAYOUT_THREADS > 0) ? createLayoutExecutor(LAYOUT_THREADS) : null;
+
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = Logger.getLogger(DownstreamProjectGridBuilder.class.getName());
+
     /**
      * Name of the first job in the grid, relative to the owner view.
      */
@@ -50,12 +106,50 @@ public class DownstreamProjectGridBuilder extends ProjectGridBuilder {
          */
         private final AbstractProject<?, ?> start;
 
+        /**
+         * Keys of the build cards the user asked to see past the layout budget.
+         */
+        private final Set<String> expandedBuildCards;
+
+        /**
+         * How far back the histories of downstream projects are searched.
+         */
+        private final DownstreamSearch downstreamSearch;
+
+        /**
+         * The dependency graph all pipeline instances of the grid are laid out against, so that they agree with each other.
+         */
+        private final DependencyGraph dependencyGraph = Jenkins.getInstance().getDependencyGraph();
+
+        /**
+         * Lays out the pipeline instances of a page concurrently, null to lay them out one after another.
+         */
+        private final ExecutorService layoutExecutor;
+
+        /**
+         * How many milliseconds a page waits for its pipeline instances to be laid out by {@link #layoutExecutor}.
+         */
+        private final long layoutDeadline;
+
         /**
          * @param start
          *      The first project to lead the pipeline.
+         * @param expandedBuildCards
+         *      Keys of the build cards the user asked to see past the layout budget, see {@link BuildForm#getExpandKey()}.
+         * @param downstreamSearch
+         *      How far back the histories of downstream projects are searched.
+         * @param layoutExecutor
+         *      Lays out the pipeline instances of a page concurrently, null to lay them out one after another.
+         * @param layoutDeadline
+         *      How many milliseconds a page waits for its pipeline instances to be laid out concurrently.
          */
-        private GridImpl(AbstractProject<?, ?> start) {
+        private GridImpl(AbstractProject<?, ?> start, Set<String> expandedBuildCards, DownstreamSearch downstreamSearch,
+                ExecutorService layoutExecutor, long layoutDeadline) {
             this.start = start;
+            this.expandedBuildCards = expandedBuildCards;
+            this.downstreamSearch = downstreamSearch;
+            this.layoutExecutor = layoutExecutor;
+            this.layoutDeadline = layoutDeadline;
             placeProjectInGrid(0, 0, ProjectForm.as(start));
         }
 
@@ -85,29 +179,197 @@ public class DownstreamProjectGridBuilder extends ProjectGridBuilder {
             }
         }
 
+        /**
+         * @param firstBuild
+         *      build of the first project
+         * @return the pipeline build of the first build, searching and resolving downstream builds the way the whole grid does
+         */
+        private PipelineBuild pipelineBuild(AbstractBuild<?, ?> firstBuild) {
+            final PipelineBuild pipelineBuild = new PipelineBuild(firstBuild);
+            pipelineBuild.setDownstreamSearch(downstreamSearch);
+            pipelineBuild.setDependencyGraph(dependencyGraph);
+            return pipelineBuild;
+        }
+
+        /**
+         * @param firstBuild
+         *      build of the first project
+         * @return the pipeline instance started by the build
+         */
+        private BuildGrid layOut(AbstractBuild<?, ?> firstBuild) {
+            return new BuildGridImpl(new BuildForm(pipelineBuild(firstBuild)), expandedBuildCards);
+        }
+
         /**
          * Factory for {@link Iterator}.
          */
         private final Iterable<BuildGrid> builds = new Iterable<BuildGrid>() {
             @Override
             public Iterator<BuildGrid> iterator() {
-                if (start == null) {
-                    return Collections.<BuildGrid>emptyList().iterator(); // no dat
+                return iterator(0);
+            }
+        };
+
+        /**
+         * @param offset
+         *      how many builds of the first project to skip, from the newest one. Skipped builds are not laid out.
+         * @return the pipeline instances started by the remaining builds of the first project
+         */
+        private Iterator<BuildGrid> iterator(final int offset) {
+            if (start == null) {
+                return Collections.<BuildGrid>emptyList().iterator(); // no dat
+            }
+
+            final Iterator<? extends AbstractBuild<?, ?>> base = start.getBuilds().iterator();
+            for (int i = 0; i < offset && base.hasNext(); i++) {
+                base.next();
+            }
+            return new AdaptedIterator<AbstractBuild<?, ?>, BuildGrid>(base) {
+                @Override
+                protected BuildGrid adapt(AbstractBuild<?, ?> item) {
+                    return layOut(item);
                 }
+            };
+        }
 
-                final Iterator<? extends AbstractBuild<?, ?>> base = start.getBuilds().iterator();
-                return new AdaptedIterator<AbstractBuild<?, ?>, BuildGrid>(base) {
+        @Override
+        public Iterable<BuildGrid> builds() {
+            return builds;
+        }
+
+        @Override
+        public Iterable<BuildGrid> builds(final int offset, final int limit) {
+            if (layoutExecutor != null && start != null) {
+                return layOutConcurrently(offset, limit);
+            }
+            return Iterables.limit(new Iterable<BuildGrid>() {
+                @Override
+                public Iterator<BuildGrid> iterator() {
+                    return GridImpl.this.iterator(offset);
+                }
+            }, limit);
+        }
+
+        /**
+         * Lays out a page of pipeline instances on {@link #layoutExecutor}, waiting at most {@link #layoutDeadline} for all of
+         * them. The layout runs with the authentication of the request.
+         *
+         * @param offset
+         *      how many builds of the first project to skip, from the newest one
+         * @param limit
+         *      how many pipeline instances to lay out
+         * @return the pipeline instances, newest first. Those whose layout missed the deadline are {@link PendingBuildGrid}s.
+         */
+        private List<BuildGrid> layOutConcurrently(final int offset, final int limit) {
+            final SecurityContext securityContext = SecurityContextHolder.getContext();
+            final List<AbstractBuild<?, ?>> firstBuilds = new ArrayList<AbstractBuild<?, ?>>();
+            final List<Future<BuildGrid>> layouts = new ArrayList<Future<BuildGrid>>();
+            for (final AbstractBuild<?, ?> item : Iterables.limit(Iterables.skip(start.getBuilds(), offset), limit)) {
+                firstBuilds.add(item);
+                layouts.add(layoutExecutor.submit(new Callable<BuildGrid>() {
                     @Override
-                    protected BuildGrid adapt(AbstractBuild<?, ?> item) {
-                        return new BuildGridImpl(new BuildForm(new PipelineBuild(item)));
+                    public BuildGrid call() {
+                        final SecurityContext previous = SecurityContextHolder.getContext();
+                        SecurityContextHolder.setContext(securityContext);
+                        try {
+                            return layOut(item);
+                        } finally {
+                            SecurityContextHolder.setContext(previous);
+                        }
                     }
-                };
+                }));
             }
-        };
+
+            final long deadline = System.currentTimeMillis() + layoutDeadline;
+            final List<BuildGrid> grids = new ArrayList<BuildGrid>(layouts.size());
+            for (int i = 0; i < layouts.size(); i++) {
+                final Future<BuildGrid> layout = layouts.get(i);
+                try {
+                    grids.add(layout.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+                } catch (final TimeoutException e) {
+                    LOGGER.fine(String.format("Layout of %s missed the deadline", firstBuilds.get(i))); //$NON-NLS-1$
+                    grids.add(new PendingBuildGrid(layout, pipelineBuild(firstBuilds.get(i))));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    grids.add(new PendingBuildGrid(layout, pipelineBuild(firstBuilds.get(i))));
+                } catch (final ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return grids;
+        }
+    }
+
+    /**
+     * {@link BuildGrid} of a pipeline instance whose layout is still running. Shows the first build only, truncated, until the
+     * layout completes, then shows the laid out pipeline instance.
+     */
+    private static final class PendingBuildGrid extends BuildGrid {
+        /**
+         * The running layout.
+         */
+        private final Future<BuildGrid> layout;
+
+        /**
+         * Shown until the layout completes.
+         */
+        private final DefaultBuildGridImpl placeholder = new DefaultBuildGridImpl();
+
+        /**
+         * @param layout
+         *      the running layout
+         * @param firstBuild
+         *      the pipeline build of the build that leads the pipeline instance
+         */
+        private PendingBuildGrid(final Future<BuildGrid> layout, final PipelineBuild firstBuild) {
+            this.layout = layout;
+            final BuildForm form = new BuildForm(firstBuild);
+            form.setTruncated(true);
+            placeholder.set(0, 0, form);
+        }
+
+        /**
+         * @return the laid out pipeline instance if the layout completed, the placeholder otherwise
+         */
+        private BuildGrid current() {
+            if (layout.isDone()) {
+                try {
+                    return layout.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (final ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Failed to lay out a pipeline instance", e.getCause()); //$NON-NLS-1$
+                }
+            }
+            return placeholder;
+        }
 
         @Override
-        public Iterable<BuildGrid> builds() {
-            return builds;
+        public boolean isPending() {
+            return !layout.isDone();
+        }
+
+        @Override
+        public BuildForm get(final int row, final int col) {
+            return current().get(row, col);
+        }
+
+        @Override
+        public int getColumns() {
+            return current().getColumns();
+        }
+
+        @Override
+        public int getRows() {
+            return current().getRows();
+        }
+
+        @Override
+        protected int getLastColumn(final int row) {
+            return current().getLastColumn(row);
         }
     }
 
@@ -115,16 +377,26 @@ public class DownstreamProjectGridBuilder extends ProjectGridBuilder {
      * {@link BuildGrid} implementation that lays things out via its upstream/downstream relationship.
      */
     private static final class BuildGridImpl extends DefaultBuildGridImpl {
+        /**
+         * Keys of the build cards the user asked to see past the layout budget.
+         */
+        private final Set<String> expandedBuildCards;
+
         /**
          * @param start
          *      The first build to lead the pipeline instance.
+         * @param expandedBuildCards
+         *      Keys of the build cards the user asked to see past the layout budget.
          */
-        private BuildGridImpl(final BuildForm start) {
-            placeBuildInGrid(0, 0, start);
+        private BuildGridImpl(final BuildForm start, final Set<String> expandedBuildCards) {
+            this.expandedBuildCards = expandedBuildCards;
+            placeBuildInGrid(0, 0, start, 0, MAX_ROWS);
         }
 
         /**
-         * Function called recursively to place a build form in a grid
+         * Function called recursively to place a build form in a grid. Downstream builds are only looked up as long as the layout
+         * stays within {@link #MAX_DEPTH} and {@link #MAX_ROWS}; a card whose downstream builds are left out is marked truncated. An
+         * expanded card lays out its downstream builds with a new budget.
          *
          * @param startingRow
          *            build will be placed in the starting row and 1st child as well. Each subsequent child
@@ -133,19 +405,58 @@ public class DownstreamProjectGridBuilder extends ProjectGridBuilder {
          *            build will be placed in starting column. All children will be placed in next column.
          * @param buildForm
          *            build to be placed
+         * @param depth
+         *            number of columns laid out since the first build or the last expanded card
+         * @param rowLimit
+         *            first row that is out of budget
          */
-        private void placeBuildInGrid(final int startingRow, final int startingColumn, final BuildForm buildForm) {
+        private void placeBuildInGrid(final int startingRow, final int startingColumn, final BuildForm buildForm, final int depth,
+                final int rowLimit) {
             int row = getNextAvailableRow(startingRow, startingColumn);
             set(row, startingColumn, buildForm);
 
+            int childrensDepth = depth + 1;
+            int childrensRowLimit = rowLimit;
+            if (depth >= MAX_DEPTH || row >= rowLimit) {
+                if (!expandedBuildCards.contains(buildForm.getExpandKey())) {
+                    buildForm.setTruncated(buildForm.hasDependencies());
+                    return;
+                }
+                childrensDepth = 1;
+                childrensRowLimit = row + MAX_ROWS;
+            }
+
             final int childrensColumn = startingColumn + 1;
             for (final BuildForm downstreamProject : buildForm.getDependencies()) {
-                placeBuildInGrid(row, childrensColumn, downstreamProject);
+                if (row >= childrensRowLimit) {
+                    buildForm.setTruncated(!expandedBuildCards.contains(buildForm.getExpandKey()));
+                    break;
+                }
+                placeBuildInGrid(row, childrensColumn, downstreamProject, childrensDepth, childrensRowLimit);
                 row++;
             }
         }
     }
 
+    /**
+     * @param threads
+     *      number of threads
+     * @return executor with that many daemon threads. When its queue is full, layouts run on the submitting thread.
+     */
+    private static ExecutorService createLayoutExecutor(final int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "Build pipeline layout #" + count.incrementAndGet()); //$NON-NLS-1$
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(threads * 16),
+                threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
     public String getFirstJob() {
         return firstJob;
     }
@@ -185,7 +496,40 @@ public class DownstreamProjectGridBuilder extends ProjectGridBuilder {
 
     @Override
     public ProjectGrid build(BuildPipelineView owner) {
-        return new GridImpl(getFirstJob(owner));
+        return build(owner, LAYOUT_EXECUTOR, LAYOUT_DEADLINE);
+    }
+
+    /**
+     * @param owner
+     *      View that this builder is operating under.
+     * @param layoutExecutor
+     *      Lays out the pipeline instances of a page concurrently, null to lay them out one after another on the calling thread.
+     * @param layoutDeadline
+     *      How many milliseconds a page waits for its pipeline instances to be laid out concurrently.
+     * @return the grid, laying out pipeline instances as configured rather than as {@link #LAYOUT_THREADS} says
+     */
+    ProjectGrid build(BuildPipelineView owner, ExecutorService layoutExecutor, long layoutDeadline) {
+        return new GridImpl(getFirstJob(owner), owner.getExpandedBuildCards(), owner.getDownstreamSearch(), layoutExecutor,
+                layoutDeadline);
+    }
+
+    /**
+     * The grid only depends on the first job, on the build cards the view expanded and on how far back the view searches for
+     * downstream builds.
+     *
+     * @param owner
+     *      View that this builder is operating under.
+     * @return
+     *      null if the first job cannot be found
+     */
+    @Override
+    public Object getCacheKey(BuildPipelineView owner) {
+        final AbstractProject<?, ?> job = getFirstJob(owner);
+        if (job == null) {
+            return null;
+        }
+        return Arrays.<Object>asList(DownstreamProjectGridBuilder.class, job.getFullName(), owner.getExpandedBuildCards(),
+                owner.getDownstreamSearch());
     }
 
     @Override
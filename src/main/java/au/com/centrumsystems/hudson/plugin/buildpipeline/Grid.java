@@ -84,12 +84,24 @@ public abstract class Grid<T> {
      *         greater than col
      */
     private boolean hasDataToRight(final int row, final int col) {
-        final int cols = getColumns();
-        for (int i = col; i < cols; i++) {
-            if (get(row, i) != null) {
-                return true;
+        return getLastColumn(row) >= col;
+    }
+
+    /**
+     * Finds the rightmost occupied column of a row. This implementation scans the row, subclasses that keep track of it should
+     * override it, as {@link #getNextAvailableRow(int, int)} asks for it once per row it passes.
+     *
+     * @param row
+     *      {@code 0&lt;=row&lt;getRows()}
+     * @return
+     *      the greatest column with something placed in the row, or -1 if the row is empty.
+     */
+    protected int getLastColumn(final int row) {
+        for (int col = getColumns() - 1; col >= 0; col--) {
+            if (get(row, col) != null) {
+                return col;
             }
         }
-        return false;
+        return -1;
     }
 }
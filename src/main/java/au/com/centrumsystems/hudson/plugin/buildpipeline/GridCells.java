@@ -0,0 +1,133 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import java.util.Arrays;
+
+/**
+ * Dense, growable storage of the cells of a {@link Grid}, shared by {@link DefaultBuildGridImpl} and {@link DefaultProjectGridImpl}.
+ *
+ * Each row is an array indexed by column, and the rightmost occupied column of every row is kept up to date as cells are set, so
+ * that {@link Grid#getNextAvailableRow(int, int)} does not have to scan the rows it passes.
+ *
+ * @param <T>
+ *     The type of the data that gets placed in the grid.
+ * @author Centrum Systems
+ */
+final class GridCells<T> {
+    /**
+     * Capacity of a new row, and of the row table of a new grid. Pipelines are rarely wider or taller than this.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Actual data, {@code cells[row][col]}. A row that was never set is null.
+     */
+    private Object[][] cells = new Object[INITIAL_CAPACITY][];
+
+    /**
+     * Rightmost occupied column of each row, -1 for an empty row.
+     */
+    private int[] lastColumns = newLastColumns(INITIAL_CAPACITY);
+
+    /**
+     * Dimension of the grid.
+     */
+    private int rows, cols;
+
+    /**
+     * @param row
+     *      position of the value
+     * @param col
+     *      position of the value
+     * @param value
+     *      The value to place. null to remove the value.
+     */
+    void set(final int row, final int col, final T value) {
+        if (row >= cells.length) {
+            final int capacity = Math.max(row + 1, cells.length * 2);
+            cells = Arrays.copyOf(cells, capacity);
+            final int[] grown = newLastColumns(capacity);
+            System.arraycopy(lastColumns, 0, grown, 0, lastColumns.length);
+            lastColumns = grown;
+        }
+        Object[] c = cells[row];
+        if (c == null) {
+            c = new Object[Math.max(col + 1, INITIAL_CAPACITY)];
+            cells[row] = c;
+        } else if (col >= c.length) {
+            c = Arrays.copyOf(c, Math.max(col + 1, c.length * 2));
+            cells[row] = c;
+        }
+        c[col] = value;
+
+        if (value != null) {
+            lastColumns[row] = Math.max(lastColumns[row], col);
+        } else if (col == lastColumns[row]) {
+            int last = col - 1;
+            while (last >= 0 && c[last] == null) {
+                last--;
+            }
+            lastColumns[row] = last;
+        }
+
+        rows = Math.max(rows, row + 1);
+        cols = Math.max(cols, col + 1);
+    }
+
+    /**
+     * @param row
+     *      position of the value
+     * @param col
+     *      position of the value
+     * @return
+     *      null if there's nothing placed in that position.
+     */
+    @SuppressWarnings("unchecked")
+    T get(final int row, final int col) {
+        if (row < 0 || row >= rows || col < 0) {
+            return null;
+        }
+        final Object[] c = cells[row];
+        if (c == null || col >= c.length) {
+            return null;
+        }
+        return (T) c[col];
+    }
+
+    /**
+     * @param row
+     *      position of the row
+     * @return
+     *      the greatest column with something placed in the row, or -1 if the row is empty.
+     */
+    int getLastColumn(final int row) {
+        if (row < 0 || row >= rows) {
+            return -1;
+        }
+        return lastColumns[row];
+    }
+
+    /**
+     * @return total number of rows.
+     */
+    int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return total number of columns.
+     */
+    int getColumns() {
+        return cols;
+    }
+
+    /**
+     * @param capacity
+     *      number of rows
+     * @return rightmost occupied columns of that many empty rows
+     */
+    private static int[] newLastColumns(final int capacity) {
+        final int[] lastColumns = new int[capacity];
+        Arrays.fill(lastColumns, -1);
+        return lastColumns;
+    }
+}
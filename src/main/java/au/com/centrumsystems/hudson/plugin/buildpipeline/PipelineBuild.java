@@ -27,6 +27,7 @@ package au.com.centrumsystems.hudson.plugin.buildpipeline;
 import hudson.model.Item;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
+import hudson.model.DependencyGraph;
 import hudson.model.FreeStyleProject;
 import hudson.model.Hudson;
 
@@ -39,6 +40,7 @@ import java.util.Map;
 import java.util.logging.Logger;
 
 import au.com.centrumsystems.hudson.plugin.util.BuildUtil;
+import au.com.centrumsystems.hudson.plugin.util.DownstreamSearch;
 import au.com.centrumsystems.hudson.plugin.util.HudsonResult;
 import au.com.centrumsystems.hudson.plugin.util.ProjectUtil;
 
@@ -63,6 +65,15 @@ public class PipelineBuild {
      * PENDING - MANUAL
      */
     private String currentBuildResult;
+    /** How far back the histories of downstream projects are searched for the builds of the pipeline. */
+    private DownstreamSearch downstreamSearch = DownstreamSearch.UNBOUNDED;
+    /**
+     * The dependency graph the upstream and downstream projects are resolved against, shared with the downstream pipeline so that all
+     * the cards of a layout agree. Null until first used, when the current graph of Hudson is taken.
+     */
+    private volatile DependencyGraph dependencyGraph;
+    /** The upstream PipelineBuild, resolved against {@link #dependencyGraph} on first use. */
+    private volatile PipelineBuild upstreamPipelineBuild;
 
     /** A Logger object is used to log messages */
     private static final Logger LOGGER = Logger.getLogger(PipelineBuild.class.getName());
@@ -115,6 +126,7 @@ public class PipelineBuild {
 
     public void setCurrentBuild(final AbstractBuild<?, ?> currentBuild) {
         this.currentBuild = currentBuild;
+        this.upstreamPipelineBuild = null;
     }
 
     public AbstractBuild<?, ?> getUpstreamBuild() {
@@ -123,10 +135,47 @@ public class PipelineBuild {
 
     public void setUpstreamBuild(final AbstractBuild<?, ?> upstreamBuild) {
         this.upstreamBuild = upstreamBuild;
+        this.upstreamPipelineBuild = null;
     }
 
     public void setProject(final AbstractProject<?, ?> currentProject) {
         this.project = currentProject;
+        this.upstreamPipelineBuild = null;
+    }
+
+    /**
+     * @return the dependency graph the upstream and downstream projects of this build are resolved against.
+     */
+    public DependencyGraph getDependencyGraph() {
+        DependencyGraph graph = dependencyGraph;
+        if (graph == null) {
+            graph = Hudson.getInstance().getDependencyGraph();
+            dependencyGraph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * @param dependencyGraph
+     *            - The dependency graph the upstream and downstream projects of this build, and of its downstream pipeline, are resolved
+     *            against
+     */
+    public void setDependencyGraph(final DependencyGraph dependencyGraph) {
+        this.dependencyGraph = dependencyGraph;
+        this.upstreamPipelineBuild = null;
+    }
+
+    public DownstreamSearch getDownstreamSearch() {
+        return downstreamSearch;
+    }
+
+    /**
+     * @param downstreamSearch
+     *            - How far back the histories of downstream projects are searched, for this build and the builds of its downstream
+     *            pipeline
+     */
+    public void setDownstreamSearch(final DownstreamSearch downstreamSearch) {
+        this.downstreamSearch = downstreamSearch;
     }
 
     /**
@@ -168,13 +217,15 @@ public class PipelineBuild {
         final AbstractProject<?, ?> currentProject;
         currentProject = getProject();
 
-        final List<AbstractProject<?, ?>> downstreamProjects = ProjectUtil.getDownstreamProjects(currentProject);
-        for (final AbstractProject<?, ?> proj : downstreamProjects) {
+        final DependencyGraph graph = getDependencyGraph();
+        for (final AbstractProject<?, ?> proj : graph.getDownstream(currentProject)) {
             AbstractBuild<?, ?> returnedBuild = null;
             if (this.currentBuild != null) {
-                returnedBuild = BuildUtil.getDownstreamBuild(proj, currentBuild);
+                returnedBuild = BuildUtil.getDownstreamBuild(proj, currentBuild, downstreamSearch);
             }
             final PipelineBuild newPB = new PipelineBuild(returnedBuild, proj, this.currentBuild);
+            newPB.setDownstreamSearch(downstreamSearch);
+            newPB.setDependencyGraph(graph);
             pbList.add(newPB);
         }
 
@@ -272,19 +323,23 @@ public class PipelineBuild {
     }
 
     /**
-     * Returns the upstream PipelineBuild object from the current PipelineBuild object.
+     * Returns the upstream PipelineBuild object from the current PipelineBuild object. The upstream project is resolved against
+     * {@link #getDependencyGraph()} once, and the same object is returned until this build is changed.
      * 
      * @return - Upstream PipelineBuild object from the current PipelineBuild object
      */
     public PipelineBuild getUpstreamPipelineBuild() {
-        @SuppressWarnings("rawtypes")
-        final List<AbstractProject> upstreamProjects = getProject().getUpstreamProjects();
-        final AbstractProject<?, ?> previousProject;
-        final PipelineBuild previousPB = new PipelineBuild();
-        if (upstreamProjects.size() > 0) {
-            previousProject = upstreamProjects.get(0);
-            previousPB.setCurrentBuild(this.getUpstreamBuild());
-            previousPB.setProject(previousProject);
+        PipelineBuild previousPB = upstreamPipelineBuild;
+        if (previousPB == null) {
+            @SuppressWarnings("rawtypes")
+            final List<AbstractProject> upstreamProjects = getDependencyGraph().getUpstream(getProject());
+            previousPB = new PipelineBuild();
+            if (upstreamProjects.size() > 0) {
+                previousPB.setCurrentBuild(this.getUpstreamBuild());
+                previousPB.setProject(upstreamProjects.get(0));
+                previousPB.setDependencyGraph(getDependencyGraph());
+            }
+            upstreamPipelineBuild = previousPB;
         }
         return previousPB;
     }
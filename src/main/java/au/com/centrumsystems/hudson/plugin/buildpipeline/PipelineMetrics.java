@@ -0,0 +1,351 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
+
+/**
+ * Latencies, call counts and rendered cells of the pipeline views, so that slow views can be told apart and the slow part of a render
+ * found.
+ *
+ * Every operation of a view (rendering the page, laying out a page of pipeline instances, each call the browsers make) keeps a count, a
+ * total, a maximum and a histogram of its latency. Card methods do not know their view, so they are recorded under {@link #CARDS}.
+ *
+ * The metrics are published as the {@link PipelineMetricsMBean} and by {@link PipelineMetricsAction}. A render that takes longer than
+ * the {@code slowRenderMillis} system property (2000 ms by default) is logged with a breakdown of its phases.
+ *
+ * @author Centrum Systems
+ */
+public final class PipelineMetrics implements PipelineMetricsMBean {
+
+    /** Name under which the metrics of build and project cards are recorded. */
+    public static final String CARDS = "(cards)"; //$NON-NLS-1$
+
+    /** logger */
+    private static final Logger LOGGER = Logger.getLogger(PipelineMetrics.class.getName());
+
+    /** How many milliseconds a render may take before a warning is logged. */
+    private static final long SLOW_RENDER_MILLIS = Long.getLong(PipelineMetrics.class.getName() + ".slowRenderMillis", 2000L);
+
+    /** Upper bounds, in milliseconds, of the histogram buckets. A last bucket takes everything slower. */
+    private static final long[] BUCKETS = { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+
+    /** Name of the MBean. */
+    private static final String OBJECT_NAME = PipelineMetrics.class.getPackage().getName() + ":type=PipelineMetrics"; //$NON-NLS-1$
+
+    /** The metrics shared by all views. */
+    private static final PipelineMetrics INSTANCE = register(new PipelineMetrics());
+
+    /** view name -> its metrics */
+    private final ConcurrentMap<String, ViewMetrics> views = new ConcurrentHashMap<String, ViewMetrics>();
+
+    /**
+     * Use {@link #get()}.
+     */
+    private PipelineMetrics() {
+    }
+
+    /**
+     * @return the metrics shared by all views.
+     */
+    public static PipelineMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the start time of an operation, to be passed to {@link #record(String, String, long)}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records an operation that has just completed.
+     *
+     * @param view
+     *            name of the view, null for {@link #CARDS}
+     * @param operation
+     *            name of the operation
+     * @param started
+     *            what {@link #start()} returned when the operation started
+     * @return how many nanoseconds the operation took
+     */
+    public long record(final String view, final String operation, final long started) {
+        final long elapsed = System.nanoTime() - started;
+        getView(view).getOperation(operation).add(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Starts timing a render, which is logged if it turns out to be slow.
+     *
+     * @param view
+     *            name of the view
+     * @param operation
+     *            name of the render
+     * @return the render, to be stopped once complete
+     */
+    public Render startRender(final String view, final String operation) {
+        return new Render(view, operation);
+    }
+
+    /**
+     * @return the metrics of all views as JSON: for each view, the number of cells rendered and, for each operation, its count, total
+     *         and maximum latency in milliseconds and its latency histogram keyed by the upper bound of each bucket.
+     */
+    public String toJSON() {
+        final JSONWriter json = new JSONWriter();
+        json.object().member("slowRenderMillis", SLOW_RENDER_MILLIS).key("views").object(); //$NON-NLS-1$ //$NON-NLS-2$
+        for (final Map.Entry<String, ViewMetrics> view : new TreeMap<String, ViewMetrics>(views).entrySet()) {
+            json.key(view.getKey());
+            view.getValue().write(json);
+        }
+        json.endObject().endObject();
+        return json.toString();
+    }
+
+    @Override
+    public String[] getViewNames() {
+        return new TreeMap<String, ViewMetrics>(views).keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public String getMetrics() {
+        return toJSON();
+    }
+
+    @Override
+    public long getSlowRenderMillis() {
+        return SLOW_RENDER_MILLIS;
+    }
+
+    @Override
+    public void reset() {
+        views.clear();
+    }
+
+    /**
+     * @param view
+     *            name of a view, null for {@link #CARDS}
+     * @return the metrics of the view, created on first use
+     */
+    private ViewMetrics getView(final String view) {
+        final String name = (view == null) ? CARDS : view;
+        ViewMetrics metrics = views.get(name);
+        if (metrics == null) {
+            final ViewMetrics created = new ViewMetrics();
+            metrics = views.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Publishes the metrics as an MBean, replacing the one of a previous instance of the plugin.
+     *
+     * @param metrics
+     *            the metrics
+     * @return the metrics
+     */
+    private static PipelineMetrics register(final PipelineMetrics metrics) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (final JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register the pipeline metrics MBean", e); //$NON-NLS-1$
+        }
+        return metrics;
+    }
+
+    /**
+     * A render being timed, phase by phase.
+     */
+    public final class Render {
+        /** Name of the view. */
+        private final String view;
+
+        /** Name of the render. */
+        private final String operation;
+
+        /** When the render started. */
+        private final long started = System.nanoTime();
+
+        /** When the current phase started. */
+        private long phaseStarted = started;
+
+        /** phase -> nanoseconds, in the order they completed */
+        private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+
+        /**
+         * @param view
+         *            name of the view
+         * @param operation
+         *            name of the render
+         */
+        private Render(final String view, final String operation) {
+            this.view = view;
+            this.operation = operation;
+        }
+
+        /**
+         * Ends a phase of the render, which is recorded as the operation "render.phase".
+         *
+         * @param phase
+         *            name of the phase that has just completed
+         */
+        public void lap(final String phase) {
+            final long now = System.nanoTime();
+            final long elapsed = now - phaseStarted;
+            phaseStarted = now;
+            phases.put(phase, elapsed);
+            getView(view).getOperation(operation + '.' + phase).add(elapsed);
+        }
+
+        /**
+         * Records the render, and logs it with its phases if it was slow.
+         *
+         * @param cells
+         *            number of build and project cards rendered
+         */
+        public void stop(final int cells) {
+            final long elapsed = record(view, operation, started);
+            getView(view).addCells(cells);
+            final long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+            if (millis >= SLOW_RENDER_MILLIS) {
+                final StringBuilder breakdown = new StringBuilder();
+                for (final Map.Entry<String, Long> phase : phases.entrySet()) {
+                    breakdown.append(", ").append(phase.getKey()).append(' ') //$NON-NLS-1$
+                        .append(TimeUnit.NANOSECONDS.toMillis(phase.getValue())).append(" ms"); //$NON-NLS-1$
+                }
+                LOGGER.warning(String.format("Slow %s of view %s: %d ms%s, %d cells", //$NON-NLS-1$
+                        operation, view, millis, breakdown, cells));
+            }
+        }
+    }
+
+    /**
+     * Metrics of a view.
+     */
+    private static final class ViewMetrics {
+        /** operation -> its latencies */
+        private final ConcurrentMap<String, Latencies> operations = new ConcurrentHashMap<String, Latencies>();
+
+        /** Cells rendered, over all renders. */
+        private final AtomicLong cells = new AtomicLong();
+
+        /** Cells rendered by the last render. */
+        private final AtomicLong lastCells = new AtomicLong();
+
+        /**
+         * @param operation
+         *            name of an operation
+         * @return the latencies of the operation, created on first use
+         */
+        private Latencies getOperation(final String operation) {
+            Latencies latencies = operations.get(operation);
+            if (latencies == null) {
+                final Latencies created = new Latencies();
+                latencies = operations.putIfAbsent(operation, created);
+                if (latencies == null) {
+                    latencies = created;
+                }
+            }
+            return latencies;
+        }
+
+        /**
+         * @param count
+         *            number of cells of a render
+         */
+        private void addCells(final int count) {
+            cells.addAndGet(count);
+            lastCells.set(count);
+        }
+
+        /**
+         * @param json
+         *            where to write the metrics, as an object
+         */
+        private void write(final JSONWriter json) {
+            json.object().member("cellsRendered", cells.get()).member("lastCellsRendered", lastCells.get()); //$NON-NLS-1$ //$NON-NLS-2$
+            json.key("operations").object(); //$NON-NLS-1$
+            for (final Map.Entry<String, Latencies> operation : new TreeMap<String, Latencies>(operations).entrySet()) {
+                json.key(operation.getKey());
+                operation.getValue().write(json);
+            }
+            json.endObject().endObject();
+        }
+    }
+
+    /**
+     * Latencies of an operation.
+     */
+    private static final class Latencies {
+        /** Number of calls. */
+        private final AtomicLong count = new AtomicLong();
+
+        /** Total nanoseconds. */
+        private final AtomicLong total = new AtomicLong();
+
+        /** Slowest call, in nanoseconds. */
+        private final AtomicLong max = new AtomicLong();
+
+        /** Number of calls in each bucket of {@link PipelineMetrics#BUCKETS}, then the slower ones. */
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS.length + 1);
+
+        /**
+         * @param nanos
+         *            latency of a call
+         */
+        private void add(final long nanos) {
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            long slowest = max.get();
+            while (nanos > slowest && !max.compareAndSet(slowest, nanos)) {
+                slowest = max.get();
+            }
+            final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && millis >= BUCKETS[bucket]) {
+                bucket++;
+            }
+            histogram.incrementAndGet(bucket);
+        }
+
+        /**
+         * @param json
+         *            where to write the latencies, as an object
+         */
+        private void write(final JSONWriter json) {
+            json.object().member("count", count.get()) //$NON-NLS-1$
+                .member("totalMillis", TimeUnit.NANOSECONDS.toMillis(total.get())) //$NON-NLS-1$
+                .member("maxMillis", TimeUnit.NANOSECONDS.toMillis(max.get())); //$NON-NLS-1$
+            json.key("histogram").object(); //$NON-NLS-1$
+            for (int bucket = 0; bucket < BUCKETS.length; bucket++) {
+                json.member("<" + BUCKETS[bucket], histogram.get(bucket)); //$NON-NLS-1$
+            }
+            json.member(">=" + BUCKETS[BUCKETS.length - 1], histogram.get(BUCKETS.length)); //$NON-NLS-1$
+            json.endObject().endObject();
+        }
+    }
+}
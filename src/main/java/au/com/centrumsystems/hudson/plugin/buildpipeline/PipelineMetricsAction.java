@@ -0,0 +1,51 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+
+import java.io.IOException;
+
+import jenkins.model.Jenkins;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Serves {@link PipelineMetrics} as JSON at {@code /pipeline-metrics/}, to administrators only.
+ *
+ * @author Centrum Systems
+ */
+@Extension
+public class PipelineMetricsAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Pipeline metrics"; //$NON-NLS-1$
+    }
+
+    @Override
+    public String getUrlName() {
+        return "pipeline-metrics"; //$NON-NLS-1$
+    }
+
+    /**
+     * Writes the metrics of all views.
+     *
+     * @param req
+     *            Stapler Request
+     * @param rsp
+     *            Stapler Response
+     * @throws IOException
+     *             IO Exception
+     */
+    public void doIndex(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        rsp.setContentType("application/json;charset=UTF-8"); //$NON-NLS-1$
+        rsp.getWriter().write(PipelineMetrics.get().toJSON());
+    }
+}
@@ -0,0 +1,29 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+/**
+ * JMX view of {@link PipelineMetrics}.
+ *
+ * @author Centrum Systems
+ */
+public interface PipelineMetricsMBean {
+
+    /**
+     * @return names of the views that have been rendered since the metrics were last reset
+     */
+    String[] getViewNames();
+
+    /**
+     * @return the metrics of all views as JSON, see {@link PipelineMetrics#toJSON()}
+     */
+    String getMetrics();
+
+    /**
+     * @return how many milliseconds a render may take before a warning is logged
+     */
+    long getSlowRenderMillis();
+
+    /**
+     * Forgets all metrics.
+     */
+    void reset();
+}
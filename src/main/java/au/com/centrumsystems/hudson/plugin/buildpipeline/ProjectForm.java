@@ -5,11 +5,16 @@ import hudson.model.AbstractProject;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
 
 import org.kohsuke.stapler.bind.JavaScriptMethod;
 
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
+
 /**
  * @author Centrum Systems
  * 
@@ -17,6 +22,11 @@ import org.kohsuke.stapler.bind.JavaScriptMethod;
  * 
  */
 public class ProjectForm {
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = Logger.getLogger(ProjectForm.class.getName());
+
     /**
      * project name
      */
@@ -37,6 +47,11 @@ public class ProjectForm {
      * downstream projects
      */
     private final List<ProjectForm> dependencies;
+    /**
+     * names of downstream projects left out of {@link #dependencies} because they lead back to this project (back-edges of a trigger
+     * cycle)
+     */
+    private final List<String> cyclicDependencies;
     /**
      * display manual build
      */
@@ -69,15 +84,32 @@ public class ProjectForm {
         lastSuccessfulBuildNumber = "";
         lastSuccessfulBuildParams = new HashMap<String, String>();
         dependencies = new ArrayList<ProjectForm>();
+        cyclicDependencies = new ArrayList<String>();
         this.displayTrigger = true;
         project = null;
     }
 
     /**
+     * Builds the form of the project and of everything downstream of it. A project reached through more than one path (fan-out then
+     * fan-in) is built once and shared, and trigger cycles are cut, see {@link #getCyclicDependencies()}.
+     *
      * @param project
      *            project
      */
     public ProjectForm(final AbstractProject<?, ?> project) {
+        this(project, new HashMap<AbstractProject<?, ?>, ProjectForm>(), new HashSet<AbstractProject<?, ?>>());
+    }
+
+    /**
+     * @param project
+     *            project
+     * @param built
+     *            forms built so far during this construction, by project; null to leave the dependencies out
+     * @param inProgress
+     *            projects on the path from the root to this project, whose forms are still being built
+     */
+    private ProjectForm(final AbstractProject<?, ?> project, final Map<AbstractProject<?, ?>, ProjectForm> built,
+            final Set<AbstractProject<?, ?>> inProgress) {
 
         final PipelineBuild pipelineBuild = new PipelineBuild(project.getLastBuild(), project, null);
 
@@ -86,8 +118,23 @@ public class ProjectForm {
         health = pipelineBuild.getProject().getBuildHealth().getIconUrl().replaceAll("\\.gif", "\\.png");
         url = pipelineBuild.getProjectURL();
         dependencies = new ArrayList<ProjectForm>();
-        for (final AbstractProject<?, ?> dependency : project.getDownstreamProjects()) {
-            dependencies.add(new ProjectForm(dependency));
+        cyclicDependencies = new ArrayList<String>();
+        if (built != null) {
+            inProgress.add(project);
+            for (final AbstractProject<?, ?> dependency : project.getDownstreamProjects()) {
+                if (inProgress.contains(dependency)) {
+                    LOGGER.fine(String.format("Trigger cycle: %s -> %s, not following it", name, dependency.getName())); //$NON-NLS-1$
+                    cyclicDependencies.add(dependency.getName());
+                    continue;
+                }
+                ProjectForm form = built.get(dependency);
+                if (form == null) {
+                    form = new ProjectForm(dependency, built, inProgress);
+                }
+                dependencies.add(form);
+            }
+            inProgress.remove(project);
+            built.put(project, this);
         }
         this.displayTrigger = true;
 
@@ -113,6 +160,13 @@ public class ProjectForm {
         return name;
     }
 
+    /**
+     * @return full name of the project, or just the name if this form does not represent an actual project.
+     */
+    public String getFullName() {
+        return (project == null) ? name : project.getFullName();
+    }
+
     public String getHealth() {
         return health;
     }
@@ -137,6 +191,14 @@ public class ProjectForm {
         return dependencies;
     }
 
+    /**
+     * @return names of the downstream projects that trigger back to this project or one of its upstream projects. They are not part of
+     *         {@link #getDependencies()}, so that the pipeline stays finite.
+     */
+    public List<String> getCyclicDependencies() {
+        return cyclicDependencies;
+    }
+
     /**
      * Gets a display value to determine whether a manual jobs 'trigger' button will be shown. This is used along with
      * isTriggerOnlyLatestJob property allow only the latest version of a job to run.
@@ -196,8 +258,11 @@ public class ProjectForm {
         return true;
     }
 
-    public int getId() {
-        return name.hashCode();
+    /**
+     * @return id of the card, see {@link CardIds}
+     */
+    public String getId() {
+        return CardIds.project(getFullName());
     }
 
     /**
@@ -207,7 +272,32 @@ public class ProjectForm {
      */
     @JavaScriptMethod
     public String asJSON() {
-        return ProjectJSONBuilder.asJSON(new ProjectForm(project));
+        final long started = PipelineMetrics.get().start();
+        try {
+            final JSONWriter json = new JSONWriter();
+            writeJSON(json);
+            return json.toString();
+        } finally {
+            PipelineMetrics.get().record(null, "ProjectForm.asJSON", started); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Writes the project as JSON, see {@link #asJSON()}.
+     *
+     * @param json
+     *            where to write the project
+     */
+    public void writeJSON(final JSONWriter json) {
+        ProjectJSONBuilder.write(json, getCard());
+    }
+
+    /**
+     * @return the project as it is now, to render its card on the server. Its downstream projects are left out.
+     */
+    public ProjectForm getCard() {
+        // only the card itself is rendered, no need to build the downstream projects
+        return (project == null) ? this : new ProjectForm(project, null, null);
     }
 
 }
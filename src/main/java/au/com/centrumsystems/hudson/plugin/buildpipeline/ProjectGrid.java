@@ -1,5 +1,7 @@
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
+import com.google.common.collect.Iterables;
+
 /**
  * Two-dimensional placement of {@link ProjectForm}s into a grid/matrix layout.
  *
@@ -19,4 +21,20 @@ public abstract class ProjectGrid extends Grid<ProjectForm> {
      * @return never null.
      */
     public abstract Iterable<BuildGrid> builds();
+
+    /**
+     * Iterates a page of the instances of the pipeline grid view, for views that lay out their history as the user scrolls.
+     *
+     * The default implementation skips over the first instances of {@link #builds()}, which lays them out only to throw them away.
+     * Implementations that can skip instances more cheaply should override it.
+     *
+     * @param offset
+     *      how many instances to skip, from the newest one.
+     * @param limit
+     *      how many instances to iterate at most.
+     * @return never null.
+     */
+    public Iterable<BuildGrid> builds(final int offset, final int limit) {
+        return Iterables.limit(Iterables.skip(builds(), offset), limit);
+    }
 }
@@ -29,6 +29,20 @@ public abstract class ProjectGridBuilder extends AbstractDescribableImpl<Project
      */
     public abstract ProjectGrid build(BuildPipelineView owner);
 
+    /**
+     * Identifies the grid {@link #build(BuildPipelineView)} would build for a view, so that views and dashboard portlets showing the
+     * same pipeline can share one computed {@link BuildPipelineForm}.
+     *
+     * @param owner
+     *      The view for which this builder is working. Never null.
+     * @return
+     *      A key with value semantics, equal for any two views this builder (or an equally configured one) would build the same grid
+     *      for; or null if the grid cannot be shared, which is the default.
+     */
+    public Object getCacheKey(BuildPipelineView owner) {
+        return null;
+    }
+
     /**
      * Called by {@link BuildPipelineView} when one of its members are renamed.
      *
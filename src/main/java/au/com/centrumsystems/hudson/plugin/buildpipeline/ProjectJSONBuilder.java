@@ -0,0 +1,59 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import java.util.Map;
+
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
+
+/**
+ * Writes the JSON a project card is rendered from, see {@link BuildJSONBuilder}.
+ *
+ * @author Centrum Systems
+ */
+public final class ProjectJSONBuilder {
+
+    /**
+     * Only static methods.
+     */
+    private ProjectJSONBuilder() {
+    }
+
+    /**
+     * @param projectForm
+     *            the project shown on the card
+     * @return the JSON of the card
+     */
+    public static String asJSON(final ProjectForm projectForm) {
+        final JSONWriter json = new JSONWriter();
+        write(json, projectForm);
+        return json.toString();
+    }
+
+    /**
+     * Writes the JSON of a card.
+     *
+     * @param json
+     *            where to write the card
+     * @param projectForm
+     *            the project shown on the card
+     */
+    public static void write(final JSONWriter json, final ProjectForm projectForm) {
+        json.object();
+        json.member("id", projectForm.getId()); //$NON-NLS-1$
+        json.member("name", projectForm.getName()); //$NON-NLS-1$
+        json.member("health", projectForm.getHealth()); //$NON-NLS-1$
+        json.member("url", projectForm.getUrl()); //$NON-NLS-1$
+        json.member("lastSuccessfulBuildNumber", projectForm.getLastSuccessfulBuildNumber()); //$NON-NLS-1$
+        json.key("lastSuccessfulBuildParams").array(); //$NON-NLS-1$
+        final Map<String, String> params = projectForm.getLastSuccessfulBuildParams();
+        if (params != null) {
+            for (final Map.Entry<String, String> param : params.entrySet()) {
+                json.object();
+                json.member("paramName", param.getKey()); //$NON-NLS-1$
+                json.member("paramValue", param.getValue()); //$NON-NLS-1$
+                json.endObject();
+            }
+        }
+        json.endArray();
+        json.endObject();
+    }
+}
@@ -0,0 +1,247 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a revision number for each project that changes whenever something happens that affects how the project is rendered in a
+ * pipeline: one of its builds starts, completes or is deleted, or the project is reconfigured, renamed or deleted.
+ *
+ * Revisions are taken from a single, monotonically increasing counter, so anything computed at revision r is still current as long as
+ * none of the projects it was computed from has a revision greater than r.
+ *
+ * Browsers that want to be told about changes rather than poll for them wait on a {@link Subscription}.
+ *
+ * @author Centrum Systems
+ */
+public final class ProjectRevisions {
+
+    /** The revisions shared by all views. */
+    private static final ProjectRevisions INSTANCE = new ProjectRevisions();
+
+    /** How many distinct changed projects a subscription queues before it gives up and asks for a full resynchronisation. */
+    private static final int MAX_PENDING_CHANGES = 64;
+
+    /** Source of revision numbers. */
+    private final AtomicLong counter = new AtomicLong();
+
+    /** full project name -> revision of its last change */
+    private final ConcurrentMap<String, Long> revisions = new ConcurrentHashMap<String, Long>();
+
+    /** Open subscriptions. */
+    private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<Subscription>();
+
+    /**
+     * Use {@link #get()}.
+     */
+    private ProjectRevisions() {
+    }
+
+    /**
+     * @return the revisions shared by all views.
+     */
+    public static ProjectRevisions get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the latest revision handed out to any project.
+     */
+    public long getRevision() {
+        return counter.get();
+    }
+
+    /**
+     * @param projectFullName
+     *            full name of the project
+     * @return the revision of the last change to the project, or 0 if it has not changed since startup.
+     */
+    public long getRevision(final String projectFullName) {
+        final Long revision = revisions.get(projectFullName);
+        return (revision == null) ? 0 : revision;
+    }
+
+    /**
+     * Records a change to a project.
+     *
+     * @param projectFullName
+     *            full name of the project
+     * @return the new revision of the project
+     */
+    public long touch(final String projectFullName) {
+        final long revision = counter.incrementAndGet();
+        revisions.put(projectFullName, revision);
+        for (final Subscription subscription : subscriptions) {
+            subscription.offer(projectFullName);
+        }
+        return revision;
+    }
+
+    /**
+     * Starts listening to changes of some projects. The caller must {@link Subscription#close()} the subscription when done.
+     *
+     * @param projectFullNames
+     *            full names of the projects of interest
+     * @return the new subscription
+     */
+    public Subscription subscribe(final Collection<String> projectFullNames) {
+        final Subscription subscription = new Subscription(projectFullNames);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Queue of changes to the projects a waiting browser shows. Repeated changes to the same project are coalesced into one entry and
+     * the queue is bounded; once it is full it only remembers that it overflowed, and the subscriber has to resynchronise everything.
+     */
+    public final class Subscription {
+        /** Full names of the projects of interest. */
+        private final Set<String> projects;
+
+        /** Changed projects not yet taken by the subscriber, oldest first. */
+        private final Set<String> pending = new LinkedHashSet<String>();
+
+        /** Whether changes were dropped because the queue was full. */
+        private boolean overflowed;
+
+        /**
+         * @param projectFullNames
+         *            full names of the projects of interest
+         */
+        private Subscription(final Collection<String> projectFullNames) {
+            projects = new HashSet<String>(projectFullNames);
+        }
+
+        /**
+         * @param projectFullName
+         *            a project that has just changed
+         */
+        private synchronized void offer(final String projectFullName) {
+            if (!projects.contains(projectFullName)) {
+                return;
+            }
+            if (pending.size() < MAX_PENDING_CHANGES || pending.contains(projectFullName)) {
+                pending.add(projectFullName);
+            } else {
+                overflowed = true;
+                pending.clear();
+            }
+            notifyAll();
+        }
+
+        /**
+         * Waits until one of the projects changes, then takes all queued changes.
+         *
+         * @param timeoutMillis
+         *            how long to wait at most
+         * @return the projects that changed, empty if none did before the timeout, or null if the queue overflowed and everything has to
+         *         be checked again.
+         * @throws InterruptedException
+         *             if interrupted while waiting
+         */
+        public synchronized Set<String> await(final long timeoutMillis) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + timeoutMillis;
+            long remaining = timeoutMillis;
+            while (pending.isEmpty() && !overflowed && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            final Set<String> changes = overflowed ? null : new LinkedHashSet<String>(pending);
+            pending.clear();
+            overflowed = false;
+            return changes;
+        }
+
+        /**
+         * Stops listening.
+         */
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+
+    /**
+     * Tracks build events.
+     */
+    @Extension
+    @SuppressWarnings("rawtypes")
+    public static final class RunListenerImpl extends RunListener<AbstractBuild> {
+        /**
+         * Listens to all {@link AbstractBuild}s.
+         */
+        public RunListenerImpl() {
+            super(AbstractBuild.class);
+        }
+
+        @Override
+        public void onStarted(final AbstractBuild build, final TaskListener listener) {
+            INSTANCE.touch(build.getProject().getFullName());
+        }
+
+        @Override
+        public void onCompleted(final AbstractBuild build, final TaskListener listener) {
+            INSTANCE.touch(build.getProject().getFullName());
+        }
+
+        @Override
+        public void onDeleted(final AbstractBuild build) {
+            INSTANCE.touch(build.getProject().getFullName());
+        }
+    }
+
+    /**
+     * Tracks renamed and deleted projects.
+     */
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onRenamed(final Item item, final String oldName, final String newName) {
+            if (item instanceof AbstractProject) {
+                final String parent = item.getParent().getFullName();
+                final String prefix = (parent.length() == 0) ? "" : parent + '/';
+                INSTANCE.touch(prefix + oldName);
+                INSTANCE.touch(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onDeleted(final Item item) {
+            if (item instanceof AbstractProject) {
+                INSTANCE.touch(item.getFullName());
+            }
+        }
+    }
+
+    /**
+     * Tracks configuration changes of projects and changes to builds that are saved outside of the build lifecycle, such as edited
+     * descriptions.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(final Saveable o, final XmlFile file) {
+            if (o instanceof AbstractProject) {
+                INSTANCE.touch(((AbstractProject<?, ?>) o).getFullName());
+            } else if (o instanceof AbstractBuild) {
+                INSTANCE.touch(((AbstractBuild<?, ?>) o).getProject().getFullName());
+            }
+        }
+    }
+}
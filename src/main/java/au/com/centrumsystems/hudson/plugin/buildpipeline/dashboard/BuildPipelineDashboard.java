@@ -54,6 +54,11 @@ public class BuildPipelineDashboard extends DashboardPortlet {
      */
     private String description;
 
+    /**
+     * The view rendered by the portlet, created on first use and kept as long as the portlet settings do not change.
+     */
+    private transient BuildPipelineView view;
+
     /**
      * Constructor
      * 
@@ -79,8 +84,9 @@ public class BuildPipelineDashboard extends DashboardPortlet {
         return gridBuilder;
     }
 
-    public void setGridBuilder(ProjectGridBuilder gridBuilder) {
+    public synchronized void setGridBuilder(ProjectGridBuilder gridBuilder) {
         this.gridBuilder = gridBuilder;
+        view = null;
     }
 
     /**
@@ -101,8 +107,9 @@ public class BuildPipelineDashboard extends DashboardPortlet {
         return noOfDisplayedBuilds;
     }
 
-    public void setNoOfDisplayedBuilds(final String noOfDisplayedBuilds) {
+    public synchronized void setNoOfDisplayedBuilds(final String noOfDisplayedBuilds) {
         this.noOfDisplayedBuilds = noOfDisplayedBuilds;
+        view = null;
     }
 
     public String getSelectedJob() {
@@ -117,12 +124,20 @@ public class BuildPipelineDashboard extends DashboardPortlet {
         return description;
     }
 
-    public void setDescription(final String description) {
+    public synchronized void setDescription(final String description) {
         this.description = description;
+        view = null;
     }
 
-    public BuildPipelineView getBuildPipelineView() {
-        return new ReadOnlyBuildPipelineView(getDisplayName(), getDescription(), getGridBuilder(), getNoOfDisplayedBuilds(), false);
+    /**
+     * @return the view the portlet renders. It is kept between renders, and its form comes from the Jenkins-wide cache shared with
+     *         the views showing the same pipeline.
+     */
+    public synchronized BuildPipelineView getBuildPipelineView() {
+        if (view == null) {
+            view = new ReadOnlyBuildPipelineView(getDisplayName(), getDescription(), getGridBuilder(), getNoOfDisplayedBuilds(), false);
+        }
+        return view;
     }
 
     /**
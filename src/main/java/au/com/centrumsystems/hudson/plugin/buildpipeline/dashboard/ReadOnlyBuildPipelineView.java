@@ -52,4 +52,16 @@ public class ReadOnlyBuildPipelineView extends BuildPipelineView {
     public boolean hasPermission(final Permission p) {
         return false;
     }
+
+    @Override
+    public int getBuildGridPageSize() {
+        // the portlet cannot be reached by the browser, so everything has to be laid out right away
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isReachableByUrl() {
+        // there is no view at our URL, or worse the real view of the same name
+        return false;
+    }
 }
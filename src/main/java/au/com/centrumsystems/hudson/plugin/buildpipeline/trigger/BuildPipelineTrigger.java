@@ -28,6 +28,7 @@ import hudson.Extension;
 import hudson.Launcher;
 import hudson.PluginWrapper;
 import hudson.Util;
+import hudson.init.Terminator;
 import hudson.model.BuildListener;
 import hudson.model.DependecyDeclarer;
 import hudson.model.DependencyGraph;
@@ -37,7 +38,6 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Descriptor;
 import hudson.model.Hudson;
-import hudson.model.Project;
 import hudson.model.listeners.ItemListener;
 import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
 import hudson.tasks.BuildStepDescriptor;
@@ -49,7 +49,11 @@ import hudson.util.FormValidation;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -80,12 +84,45 @@ public class BuildPipelineTrigger extends Notifier implements DependecyDeclarer
     /** downstream project name */
     private String downstreamProjectNames;
 
+    /** {@link #downstreamProjectNames} parsed by {@link #getDownstreamProjectNameSet()}, dropped whenever they change. */
+    private transient volatile Set<String> downstreamProjectNameSet;
+
     public String getDownstreamProjectNames() {
         return downstreamProjectNames;
     }
 
     public void setDownstreamProjectNames(final String downstreamProjectNames) {
         this.downstreamProjectNames = downstreamProjectNames;
+        this.downstreamProjectNameSet = null;
+    }
+
+    /**
+     * @return the names in {@link #getDownstreamProjectNames()}, trimmed and in lower case, so that they can be matched
+     *         case-insensitively with a hash lookup.
+     */
+    public Set<String> getDownstreamProjectNameSet() {
+        Set<String> names = downstreamProjectNameSet;
+        if (names == null) {
+            names = new HashSet<String>();
+            for (final String name : Util.fixNull(downstreamProjectNames).split(",")) { //$NON-NLS-1$
+                final String trimmed = name.trim();
+                if (trimmed.length() > 0) {
+                    names.add(normalizeProjectName(trimmed));
+                }
+            }
+            names = Collections.unmodifiableSet(names);
+            downstreamProjectNameSet = names;
+        }
+        return names;
+    }
+
+    /**
+     * @param projectName
+     *            a project name
+     * @return the key the project name is looked up by in {@link #getDownstreamProjectNameSet()}
+     */
+    public static String normalizeProjectName(final String projectName) {
+        return projectName.toLowerCase(Locale.ENGLISH);
     }
 
     public List<AbstractBuildParameters> getConfigs() {
@@ -122,6 +159,7 @@ public class BuildPipelineTrigger extends Notifier implements DependecyDeclarer
     @Override
     @SuppressWarnings("rawtypes")
     public void buildDependencyGraph(final AbstractProject owner, final DependencyGraph graph) {
+        ManualTriggerEdges.get().invalidate(owner);
         if ((downstreamProjectNames != null) && (downstreamProjectNames.length() > 0)) {
             for (final Object o : Items.fromNameList(downstreamProjectNames, AbstractProject.class)) {
                 final AbstractProject downstream = (AbstractProject) o;
@@ -332,41 +370,49 @@ public class BuildPipelineTrigger extends Notifier implements DependecyDeclarer
         }
 
         /**
-         * If a job is renamed, update all BuildPipelineTriggers with the new name.
+         * If a job is renamed or deleted, update the BuildPipelineTriggers that name it. Only the projects that refer to the job are
+         * touched, see {@link ManualTriggerEdges#getUpstreamProjects(String)}, and they are saved in the background by
+         * {@link ProjectSaveQueue}.
          */
         @Extension
         public static final class ItemListenerImpl extends ItemListener {
             @Override
             public void onRenamed(final Item item, final String oldName, final String newName) {
-                for (final Project<?, ?> p : Hudson.getInstance().getProjects()) {
+                final String failureMessage = String.format(
+                        Strings.getString("BuildPipelineTrigger.FailedPersistDuringRename_FMT"), oldName, newName); //$NON-NLS-1$
+                for (final AbstractProject<?, ?> p : ManualTriggerEdges.get().getUpstreamProjects(oldName)) {
                     final BuildPipelineTrigger bpTrigger = p.getPublishersList().get(BuildPipelineTrigger.class);
-                    if (bpTrigger != null) {
-                        boolean changed = false;
-                        changed = bpTrigger.onDownstreamProjectRenamed(oldName, newName);
-
-                        if (changed) {
-                            try {
-                                p.save();
-                            } catch (final IOException e) {
-                                Logger.getLogger(ItemListenerImpl.class.getName()).log(Level.SEVERE,
-                                        String.format(Strings.getString("BuildPipelineTrigger.FailedPersistDuringRename_FMT"), //$NON-NLS-1$
-                                                oldName, newName), e);
-                            }
-                        }
+                    if (bpTrigger != null && bpTrigger.onDownstreamProjectRenamed(oldName, newName)) {
+                        ManualTriggerEdges.get().invalidate(p);
+                        ProjectSaveQueue.get().schedule(p, failureMessage);
                     }
                 }
             }
 
             @Override
             public void onDeleted(final Item item) {
-                for (final Project<?, ?> p : Hudson.getInstance().getProjects()) {
-                    final String oldName = item.getName();
+                final String oldName = item.getName();
+                final String failureMessage = Strings.getString("BuildPipelineTrigger.FailedPersistDuringRemoval") + oldName; //$NON-NLS-1$
+                for (final AbstractProject<?, ?> p : ManualTriggerEdges.get().getUpstreamProjects(oldName)) {
                     final BuildPipelineTrigger bpTrigger = p.getPublishersList().get(BuildPipelineTrigger.class);
-                    if (bpTrigger != null) {
-                        bpTrigger.removeDownstreamTrigger(bpTrigger, p, oldName);
+                    if (bpTrigger != null && bpTrigger.onDownstreamProjectDeleted(oldName)) {
+                        ManualTriggerEdges.get().invalidate(p);
+                        ProjectSaveQueue.get().schedule(p, failureMessage);
                     }
                 }
             }
+
+            /**
+             * Saves the projects still waiting in {@link ProjectSaveQueue} before Jenkins goes down, as its thread does not keep the
+             * JVM alive.
+             *
+             * @throws InterruptedException
+             *             if interrupted while waiting
+             */
+            @Terminator
+            public static void saveScheduledProjects() throws InterruptedException {
+                ProjectSaveQueue.get().flush();
+            }
         }
     }
 }
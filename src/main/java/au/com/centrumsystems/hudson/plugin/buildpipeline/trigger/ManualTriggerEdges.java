@@ -0,0 +1,305 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2011, Centrum Systems Pty Ltd
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package au.com.centrumsystems.hudson.plugin.buildpipeline.trigger;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractProject;
+import hudson.model.DependencyGraph;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.tasks.Publisher;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import jenkins.model.Jenkins;
+
+/**
+ * Table of manual edges of the pipeline: for each upstream project, the (normalized) names of the downstream projects that it
+ * triggers through a {@link BuildPipelineTrigger}, i.e. that have to be triggered manually.
+ *
+ * The entry of an upstream project is computed on first use and dropped when the project is saved, renamed or deleted, or when the
+ * dependency graph is rebuilt, so that a manual trigger check is a hash lookup instead of a walk over the publishers of the upstream
+ * project.
+ *
+ * The table is also kept inverted, from the name of a downstream project to the upstream projects whose triggers name it, so that a
+ * rename or delete only touches the projects that refer to the renamed or deleted one, see {@link #getUpstreamProjects(String)}. The
+ * inverted table is built by a walk over all projects on first use, then kept up to date as projects are saved, deleted and as the
+ * dependency graph is rebuilt.
+ *
+ * @author Centrum Systems
+ *
+ */
+public final class ManualTriggerEdges {
+
+    /** The table shared by all views and triggers. */
+    private static final ManualTriggerEdges INSTANCE = new ManualTriggerEdges();
+
+    /** upstream project -> normalized names of the manually triggered downstream projects. Weak keys, like the projects they cache. */
+    private final Map<AbstractProject<?, ?>, Set<String>> edges = new WeakHashMap<AbstractProject<?, ?>, Set<String>>();
+
+    /** The dependency graph the entries were computed against. */
+    private DependencyGraph graph;
+
+    /**
+     * normalized downstream project name -> upstream projects whose {@link BuildPipelineTrigger}s name it. Null until first used, and
+     * when Jenkins has been reloaded.
+     */
+    private Map<String, Set<AbstractProject<?, ?>>> upstreamProjects;
+
+    /** upstream project -> the names it is filed under in {@link #upstreamProjects}. Weak keys, like the projects they index. */
+    private final Map<AbstractProject<?, ?>, Set<String>> indexedNames = new WeakHashMap<AbstractProject<?, ?>, Set<String>>();
+
+    /**
+     * Use {@link #get()}.
+     */
+    private ManualTriggerEdges() {
+    }
+
+    /**
+     * @return the table shared by all views and triggers.
+     */
+    public static ManualTriggerEdges get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Determines if a manual trigger of the downstream project from the upstream project is required.
+     *
+     * @param upstreamProject
+     *            - The upstream project
+     * @param downstreamProject
+     *            - The downstream project
+     * @return - true: Manual trigger required; false: Manual trigger not required
+     */
+    public boolean isManualTrigger(final AbstractProject<?, ?> upstreamProject, final AbstractProject<?, ?> downstreamProject) {
+        return getManualDownstreamProjectNames(upstreamProject).contains(
+                BuildPipelineTrigger.normalizeProjectName(downstreamProject.getName()));
+    }
+
+    /**
+     * @param upstreamProject
+     *            - The upstream project
+     * @return the normalized names of the downstream projects the upstream project triggers manually
+     */
+    public synchronized Set<String> getManualDownstreamProjectNames(final AbstractProject<?, ?> upstreamProject) {
+        final Jenkins jenkins = Jenkins.getInstance();
+        final DependencyGraph currentGraph = (jenkins == null) ? null : jenkins.getDependencyGraph();
+        if (currentGraph != graph) {
+            edges.clear();
+            graph = currentGraph;
+        }
+
+        Set<String> names = edges.get(upstreamProject);
+        if (names == null) {
+            names = collect(upstreamProject);
+            edges.put(upstreamProject, names);
+        }
+        return names;
+    }
+
+    /**
+     * @param downstreamProjectName
+     *            - The name of a downstream project
+     * @return the projects with a {@link BuildPipelineTrigger} that names the downstream project, matched case-insensitively
+     */
+    public synchronized Set<AbstractProject<?, ?>> getUpstreamProjects(final String downstreamProjectName) {
+        if (upstreamProjects == null) {
+            upstreamProjects = new HashMap<String, Set<AbstractProject<?, ?>>>();
+            indexedNames.clear();
+            final Jenkins jenkins = Jenkins.getInstance();
+            if (jenkins != null) {
+                for (final AbstractProject<?, ?> project : jenkins.getAllItems(AbstractProject.class)) {
+                    index(project);
+                }
+            }
+        }
+        final Set<AbstractProject<?, ?>> projects = upstreamProjects.get(BuildPipelineTrigger.normalizeProjectName(downstreamProjectName));
+        if (projects == null) {
+            return Collections.emptySet();
+        }
+        // a copy, the callers change the triggers they get, which changes this index
+        return new HashSet<AbstractProject<?, ?>>(projects);
+    }
+
+    /**
+     * Drops the entry of an upstream project, it will be computed again on next use, and files the project again under the names its
+     * triggers name now.
+     *
+     * @param upstreamProject
+     *            - The upstream project
+     */
+    public synchronized void invalidate(final AbstractProject<?, ?> upstreamProject) {
+        edges.remove(upstreamProject);
+        if (upstreamProjects != null) {
+            unindex(upstreamProject);
+            index(upstreamProject);
+        }
+    }
+
+    /**
+     * Forgets a project that has been deleted.
+     *
+     * @param upstreamProject
+     *            - The deleted project
+     */
+    public synchronized void forget(final AbstractProject<?, ?> upstreamProject) {
+        edges.remove(upstreamProject);
+        if (upstreamProjects != null) {
+            unindex(upstreamProject);
+        }
+    }
+
+    /**
+     * Forgets all projects, after Jenkins has loaded them anew.
+     */
+    public synchronized void reset() {
+        edges.clear();
+        upstreamProjects = null;
+        indexedNames.clear();
+    }
+
+    /**
+     * Files a project in {@link #upstreamProjects} under the names its triggers name.
+     *
+     * @param upstreamProject
+     *            - The upstream project
+     */
+    private void index(final AbstractProject<?, ?> upstreamProject) {
+        final Set<String> names = collect(upstreamProject);
+        if (names.isEmpty()) {
+            return;
+        }
+        indexedNames.put(upstreamProject, names);
+        for (final String name : names) {
+            Set<AbstractProject<?, ?>> projects = upstreamProjects.get(name);
+            if (projects == null) {
+                projects = Collections.newSetFromMap(new WeakHashMap<AbstractProject<?, ?>, Boolean>());
+                upstreamProjects.put(name, projects);
+            }
+            projects.add(upstreamProject);
+        }
+    }
+
+    /**
+     * Removes a project from {@link #upstreamProjects}, under the names it was filed under.
+     *
+     * @param upstreamProject
+     *            - The upstream project
+     */
+    private void unindex(final AbstractProject<?, ?> upstreamProject) {
+        final Set<String> names = indexedNames.remove(upstreamProject);
+        if (names == null) {
+            return;
+        }
+        for (final String name : names) {
+            final Set<AbstractProject<?, ?>> projects = upstreamProjects.get(name);
+            if (projects != null) {
+                projects.remove(upstreamProject);
+                if (projects.isEmpty()) {
+                    upstreamProjects.remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param upstreamProject
+     *            - The upstream project
+     * @return the names of all {@link BuildPipelineTrigger}s of the upstream project
+     */
+    private static Set<String> collect(final AbstractProject<?, ?> upstreamProject) {
+        Set<String> names = Collections.emptySet();
+        boolean shared = true;
+        for (final Publisher publisher : upstreamProject.getPublishersList()) {
+            if (publisher instanceof BuildPipelineTrigger) {
+                final Set<String> triggerNames = ((BuildPipelineTrigger) publisher).getDownstreamProjectNameSet();
+                if (names.isEmpty()) {
+                    names = triggerNames;
+                } else {
+                    // more than one trigger, which is unusual: merge into a set of our own
+                    if (shared) {
+                        names = new HashSet<String>(names);
+                        shared = false;
+                    }
+                    names.addAll(triggerNames);
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Drops the entry of a project whose configuration was saved, and indexes its triggers again.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(final Saveable o, final XmlFile file) {
+            if (o instanceof AbstractProject) {
+                INSTANCE.invalidate((AbstractProject<?, ?>) o);
+            }
+        }
+    }
+
+    /**
+     * Drops the entries of created, renamed and deleted projects, and everything once Jenkins has (re)loaded its projects.
+     */
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onCreated(final Item item) {
+            if (item instanceof AbstractProject) {
+                INSTANCE.invalidate((AbstractProject<?, ?>) item);
+            }
+        }
+
+        @Override
+        public void onRenamed(final Item item, final String oldName, final String newName) {
+            if (item instanceof AbstractProject) {
+                INSTANCE.invalidate((AbstractProject<?, ?>) item);
+            }
+        }
+
+        @Override
+        public void onDeleted(final Item item) {
+            if (item instanceof AbstractProject) {
+                INSTANCE.forget((AbstractProject<?, ?>) item);
+            }
+        }
+
+        @Override
+        public void onLoaded() {
+            INSTANCE.reset();
+        }
+    }
+}
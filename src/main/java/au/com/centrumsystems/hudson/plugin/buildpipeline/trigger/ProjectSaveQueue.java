@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2011, Centrum Systems Pty Ltd
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package au.com.centrumsystems.hudson.plugin.buildpipeline.trigger;
+
+import hudson.Util;
+import hudson.model.AbstractProject;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves the projects whose {@link BuildPipelineTrigger}s were changed because a project they name was renamed or deleted. The saves run
+ * in batches on a background thread, so that a rename or delete does not wait for the configuration files of all the projects that
+ * refer to it to be written.
+ *
+ * A project scheduled again before it was saved is saved once. A trigger left without downstream projects is removed from its project,
+ * which saves the project. The queue is flushed when Jenkins shuts down, see
+ * {@link BuildPipelineTrigger.DescriptorImpl.ItemListenerImpl#saveScheduledProjects()}.
+ *
+ * @author Centrum Systems
+ *
+ */
+final class ProjectSaveQueue {
+
+    /** logger */
+    private static final Logger LOGGER = Logger.getLogger(ProjectSaveQueue.class.getName());
+
+    /** The queue of all triggers. */
+    private static final ProjectSaveQueue INSTANCE = new ProjectSaveQueue();
+
+    /** The thread the projects are saved on. */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "Build pipeline trigger saver"); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** project -> what to log if it cannot be saved, in the order they were scheduled. Empty when no batch is waiting. */
+    private final Map<AbstractProject<?, ?>, String> pending = new LinkedHashMap<AbstractProject<?, ?>, String>();
+
+    /**
+     * Use {@link #get()}.
+     */
+    private ProjectSaveQueue() {
+    }
+
+    /**
+     * @return the queue of all triggers.
+     */
+    static ProjectSaveQueue get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Saves a project with the next batch.
+     *
+     * @param project
+     *            - The project to save
+     * @param failureMessage
+     *            - What to log if the project cannot be saved
+     */
+    synchronized void schedule(final AbstractProject<?, ?> project, final String failureMessage) {
+        if (pending.isEmpty()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    saveBatch();
+                }
+            });
+        }
+        pending.put(project, failureMessage);
+    }
+
+    /**
+     * Waits until the projects scheduled so far have been saved.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    void flush() throws InterruptedException {
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // the batches scheduled before have run
+                }
+            }).get();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Saves the projects scheduled so far.
+     */
+    private void saveBatch() {
+        final Map<AbstractProject<?, ?>, String> batch;
+        synchronized (this) {
+            batch = new LinkedHashMap<AbstractProject<?, ?>, String>(pending);
+            pending.clear();
+        }
+        for (final Map.Entry<AbstractProject<?, ?>, String> project : batch.entrySet()) {
+            save(project.getKey(), project.getValue());
+        }
+    }
+
+    /**
+     * @param project
+     *            - The project to save
+     * @param failureMessage
+     *            - What to log if the project cannot be saved
+     */
+    private static void save(final AbstractProject<?, ?> project, final String failureMessage) {
+        try {
+            final BuildPipelineTrigger bpTrigger = project.getPublishersList().get(BuildPipelineTrigger.class);
+            if (bpTrigger != null && Util.fixNull(bpTrigger.getDownstreamProjectNames()).length() == 0) {
+                project.getPublishersList().remove(bpTrigger);
+            } else {
+                project.save();
+            }
+        } catch (final IOException e) {
+            LOGGER.log(Level.SEVERE, failureMessage, e);
+        }
+    }
+}
@@ -28,13 +28,13 @@ import hudson.model.Action;
 import hudson.model.ParameterValue;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
-import hudson.model.Cause;
-import hudson.model.Cause.UpstreamCause;
-import hudson.model.CauseAction;
 import hudson.model.ParametersAction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides helper methods for #hudson.model.AbstractBuild
@@ -55,22 +55,26 @@ public final class BuildUtil {
      */
     public static AbstractBuild<?, ?> getDownstreamBuild(final AbstractProject<?, ?> downstreamProject,
             final AbstractBuild<?, ?> upstreamBuild) {
+        return getDownstreamBuild(downstreamProject, upstreamBuild, DownstreamSearch.UNBOUNDED);
+    }
+
+    /**
+     * Gets the next downstream build based on the upstream build and downstream project, searching the history of the downstream
+     * project no further back than the search allows.
+     * 
+     * @param downstreamProject
+     *            - The downstream project
+     * @param upstreamBuild
+     *            - The upstream build
+     * @param search
+     *            - How far back the history of the downstream project is searched
+     * @return - The next downstream build based on the upstream build and downstream project, or null if there is none within the
+     *         bounds of the search.
+     */
+    public static AbstractBuild<?, ?> getDownstreamBuild(final AbstractProject<?, ?> downstreamProject,
+            final AbstractBuild<?, ?> upstreamBuild, final DownstreamSearch search) {
         if ((downstreamProject != null) && (upstreamBuild != null)) {
-            @SuppressWarnings("unchecked")
-            final List<AbstractBuild<?, ?>> downstreamBuilds = (List<AbstractBuild<?, ?>>) downstreamProject.getBuilds();
-            for (final AbstractBuild<?, ?> innerBuild : downstreamBuilds) {
-                for (final CauseAction action : innerBuild.getActions(CauseAction.class)) {
-                    for (final Cause cause : action.getCauses()) {
-                        if (cause instanceof UpstreamCause) {
-                            final UpstreamCause upstreamCause = (UpstreamCause) cause;
-                            if (upstreamCause.getUpstreamProject().equals(upstreamBuild.getProject().getName())
-                                    && (upstreamCause.getUpstreamBuild() == upstreamBuild.getNumber())) {
-                                return innerBuild;
-                            }
-                        }
-                    }
-                }
-            }
+            return DownstreamBuildIndex.get().getDownstreamBuild(downstreamProject, upstreamBuild, search);
         }
         return null;
     }
@@ -87,7 +91,7 @@ public final class BuildUtil {
      */
     public static Action getAllBuildParametersAction(//
             final AbstractBuild<?, ?> upstreamBuild, final AbstractProject<?, ?> downstreamProject) { //
-        // Retrieve the List of Actions from the downstream project
+        // Retrieve the default parameters of the downstream project, cached until it is saved
         final ParametersAction dsProjectParametersAction = ProjectUtil.getProjectParametersAction(downstreamProject);
 
         // Retrieve the List of Actions from the upstream build
@@ -127,20 +131,49 @@ public final class BuildUtil {
      * @return - Single set of ParametersAction
      */
     public static ParametersAction mergeParameters(final ParametersAction base, final ParametersAction overlay) {
-        final LinkedHashMap<String, ParameterValue> params = new LinkedHashMap<String, ParameterValue>();
-        if (base != null) {
-            for (final ParameterValue param : base.getParameters()) {
-                params.put(param.getName(), param);
-            }
-        }
+        return mergeParameters(Arrays.asList(base, overlay));
+    }
 
-        if (overlay != null) {
-            for (final ParameterValue param : overlay.getParameters()) {
-                params.put(param.getName(), param);
+    /**
+     * Merges any number of ParametersActions in a single pass: a parameter of an action overrides the parameter of the same name of
+     * the actions before it, and keeps the position the name first appeared at. Null and empty actions are skipped, and as long as only
+     * one action has parameters, they are copied as they are.
+     * 
+     * @param actions
+     *            the ParametersActions, in increasing order of precedence; any of them may be null
+     * @return - A new ParametersAction with the merged parameters, that can be attached to a build
+     */
+    public static ParametersAction mergeParameters(final List<ParametersAction> actions) {
+        // the parameters of the only action that has any so far
+        List<ParameterValue> single = null;
+        Map<String, ParameterValue> merged = null;
+        for (final ParametersAction action : actions) {
+            if (action == null || action.getParameters().isEmpty()) {
+                continue;
+            }
+            if (merged == null) {
+                if (single == null) {
+                    single = action.getParameters();
+                    continue;
+                }
+                merged = new LinkedHashMap<String, ParameterValue>();
+                for (final ParameterValue param : single) {
+                    merged.put(param.getName(), param);
+                }
+            }
+            for (final ParameterValue param : action.getParameters()) {
+                merged.put(param.getName(), param);
             }
         }
 
-        return new ParametersAction(params.values().toArray(new ParameterValue[params.size()]));
+        if (merged != null) {
+            return new ParametersAction(new ArrayList<ParameterValue>(merged.values()));
+        }
+        if (single != null) {
+            // a copy, the action may be shared, see DefaultParametersCache
+            return new ParametersAction(new ArrayList<ParameterValue>(single));
+        }
+        return new ParametersAction();
     }
 
 }
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2011, Centrum Systems Pty Ltd
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package au.com.centrumsystems.hudson.plugin.util;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AbstractProject;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The default parameters of each project, as a {@link ParametersAction}.
+ *
+ * Computing the default value of a parameter definition can be expensive (some definitions read files or run scripts), and the
+ * defaults of the triggered project are needed by every manual trigger. They are computed once per project and kept until the
+ * project's configuration is saved.
+ *
+ * The actions are shared: they are meant to be merged into the parameters of a build, not to be attached to one.
+ *
+ * @author Centrum Systems
+ *
+ */
+public final class DefaultParametersCache {
+
+    /** The cache shared by all views. */
+    private static final DefaultParametersCache INSTANCE = new DefaultParametersCache();
+
+    /** Cached for a project without parameters. */
+    private static final ParametersAction NO_PARAMETERS = new ParametersAction();
+
+    /** project -> its default parameters. Weak keys so that deleted or reloaded projects simply drop out. */
+    private final Map<AbstractProject<?, ?>, ParametersAction> defaults = Collections
+            .synchronizedMap(new WeakHashMap<AbstractProject<?, ?>, ParametersAction>());
+
+    /** Number of invalidations so far, so that defaults computed before an invalidation are not cached after it. */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Use {@link #get()}.
+     */
+    private DefaultParametersCache() {
+    }
+
+    /**
+     * @return the cache shared by all views.
+     */
+    public static DefaultParametersCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param project
+     *            - The project
+     * @return the default parameters of the project, null if it has no parameters
+     */
+    public ParametersAction getDefaultParameters(final AbstractProject<?, ?> project) {
+        ParametersAction action = defaults.get(project);
+        if (action == null) {
+            // computed outside of the lock: a slow definition of one project must not hold up the others
+            final long invalidated = invalidations.get();
+            action = compute(project);
+            synchronized (defaults) {
+                if (invalidations.get() == invalidated) {
+                    defaults.put(project, action);
+                }
+            }
+        }
+        return (action == NO_PARAMETERS) ? null : action;
+    }
+
+    /**
+     * Drops the default parameters of a project, they will be computed again on next use.
+     *
+     * @param project
+     *            - The project
+     */
+    public void invalidate(final AbstractProject<?, ?> project) {
+        synchronized (defaults) {
+            invalidations.incrementAndGet();
+            defaults.remove(project);
+        }
+    }
+
+    /**
+     * @param project
+     *            - The project
+     * @return the default parameters of the project, {@link #NO_PARAMETERS} if it has no parameters
+     */
+    private static ParametersAction compute(final AbstractProject<?, ?> project) {
+        final ParametersDefinitionProperty property = project.getProperty(ParametersDefinitionProperty.class);
+        if (property == null) {
+            return NO_PARAMETERS;
+        }
+
+        final List<ParameterValue> parameters = new ArrayList<ParameterValue>();
+        for (final ParameterDefinition pd : property.getParameterDefinitions()) {
+            final ParameterValue param = pd.getDefaultParameterValue();
+            if (param != null) {
+                parameters.add(param);
+            }
+        }
+        return new ParametersAction(parameters);
+    }
+
+    /**
+     * Drops the default parameters of a project whose configuration was saved.
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(final Saveable o, final XmlFile file) {
+            if (o instanceof AbstractProject) {
+                INSTANCE.invalidate((AbstractProject<?, ?>) o);
+            }
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2011, Centrum Systems Pty Ltd
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package au.com.centrumsystems.hudson.plugin.util;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.Cause.UpstreamCause;
+import hudson.model.CauseAction;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Reverse index from an upstream build, identified by (upstream project name, upstream build number), to the newest build of a
+ * downstream project that was caused by it.
+ *
+ * The index of a downstream project is populated lazily: the first lookup walks the project's history newest-first only as far as it
+ * needs to, and remembers how far it got so that no build is ever inspected twice. Builds started after that are recorded by
+ * {@link RunListenerImpl}, so a repeated lookup is a single hash lookup instead of a scan of the whole history.
+ *
+ * @author Centrum Systems
+ *
+ */
+public final class DownstreamBuildIndex {
+
+    /** A Logger object is used to log messages */
+    private static final Logger LOGGER = Logger.getLogger(DownstreamBuildIndex.class.getName());
+
+    /** The index shared by all views. */
+    private static final DownstreamBuildIndex INSTANCE = new DownstreamBuildIndex();
+
+    /**
+     * Per downstream project index. Weak keys so that deleted or reloaded projects simply drop out; this also makes renames a
+     * non-issue.
+     */
+    private final Map<AbstractProject<?, ?>, ProjectIndex> projects = Collections
+            .synchronizedMap(new WeakHashMap<AbstractProject<?, ?>, ProjectIndex>());
+
+    /**
+     * Use {@link #get()}.
+     */
+    private DownstreamBuildIndex() {
+    }
+
+    /**
+     * @return the index shared by all views.
+     */
+    public static DownstreamBuildIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Finds the newest build of the downstream project that was caused by the upstream build.
+     *
+     * @param downstreamProject
+     *            - The downstream project
+     * @param upstreamBuild
+     *            - The upstream build
+     * @return the downstream build, or null if there is none.
+     */
+    public AbstractBuild<?, ?> getDownstreamBuild(final AbstractProject<?, ?> downstreamProject, final AbstractBuild<?, ?> upstreamBuild) {
+        return getDownstreamBuild(downstreamProject, upstreamBuild, DownstreamSearch.UNBOUNDED);
+    }
+
+    /**
+     * Finds the newest build of the downstream project that was caused by the upstream build, walking no further back in the history
+     * of the downstream project than the search allows.
+     *
+     * @param downstreamProject
+     *            - The downstream project
+     * @param upstreamBuild
+     *            - The upstream build
+     * @param search
+     *            - How far back the history of the downstream project may be walked
+     * @return the downstream build, or null if there is none within the bounds of the search.
+     */
+    public AbstractBuild<?, ?> getDownstreamBuild(final AbstractProject<?, ?> downstreamProject, final AbstractBuild<?, ?> upstreamBuild,
+            final DownstreamSearch search) {
+        final ProjectIndex index = indexOf(downstreamProject, true);
+        final Integer number = index.find(downstreamProject, upstreamBuild, search);
+        if (number == null) {
+            return null;
+        }
+        return downstreamProject.getBuildByNumber(number);
+    }
+
+    /**
+     * Forgets everything that is known about the downstream project. The next lookup will walk its history again.
+     *
+     * @param downstreamProject
+     *            - The downstream project
+     */
+    public void invalidate(final AbstractProject<?, ?> downstreamProject) {
+        projects.remove(downstreamProject);
+    }
+
+    /**
+     * Records a new build in the index of its project, if that project has been indexed already.
+     *
+     * @param build
+     *            - The new build
+     */
+    void onStarted(final AbstractBuild<?, ?> build) {
+        final ProjectIndex index = indexOf(build.getProject(), false);
+        if (index != null) {
+            index.record(build);
+        }
+    }
+
+    /**
+     * Removes a deleted build from the index of its project.
+     *
+     * @param build
+     *            - The deleted build
+     */
+    void onDeleted(final AbstractBuild<?, ?> build) {
+        final ProjectIndex index = indexOf(build.getProject(), false);
+        if (index != null) {
+            index.remove(build);
+        }
+    }
+
+    /**
+     * @param project
+     *            - The downstream project
+     * @param create
+     *            - whether a missing index should be created
+     * @return the index of the project, possibly null if create is false.
+     */
+    private ProjectIndex indexOf(final AbstractProject<?, ?> project, final boolean create) {
+        synchronized (projects) {
+            ProjectIndex index = projects.get(project);
+            if (index == null && create) {
+                index = new ProjectIndex();
+                projects.put(project, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * @param upstreamProjectName
+     *            - name of the upstream project as recorded in the {@link UpstreamCause}
+     * @param upstreamBuildNumber
+     *            - number of the upstream build
+     * @return the index key
+     */
+    private static String key(final String upstreamProjectName, final int upstreamBuildNumber) {
+        return upstreamProjectName + '#' + upstreamBuildNumber;
+    }
+
+    /**
+     * @param build
+     *            - A downstream build
+     * @return the index keys of the upstream builds that caused it
+     */
+    private static List<String> upstreamKeys(final AbstractBuild<?, ?> build) {
+        final List<String> keys = new ArrayList<String>();
+        for (final CauseAction action : build.getActions(CauseAction.class)) {
+            for (final Cause cause : action.getCauses()) {
+                if (cause instanceof UpstreamCause) {
+                    final UpstreamCause upstreamCause = (UpstreamCause) cause;
+                    keys.add(key(upstreamCause.getUpstreamProject(), upstreamCause.getUpstreamBuild()));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Index of a single downstream project.
+     */
+    private static final class ProjectIndex {
+        /** upstream key -> newest downstream build number caused by it */
+        private final Map<String, Integer> builds = new HashMap<String, Integer>();
+
+        /** Lowest build number that has been inspected by the newest-first walk; 0 when the walk has not started. */
+        private int scannedDownTo;
+
+        /** Whether the newest-first walk has reached the first build. */
+        private boolean exhausted;
+
+        /**
+         * Looks up the upstream build, walking further back in the history only if it is not known yet, and only as far as the search
+         * allows. A walk stopped by the search is resumed where it stopped by the next lookup that allows it to go further.
+         *
+         * The depth of a build is its distance from the newest build of the project, by build number, whenever the walk started and
+         * whatever other lookups walked before.
+         *
+         * Walking loads builds from disk, so it is done without holding the lock of the index: only reading where the walk stands and
+         * publishing what it found are. Lookups walking at the same time may load the same builds, recording them twice does no harm.
+         *
+         * @param project
+         *            - The downstream project this index belongs to
+         * @param upstreamBuild
+         *            - The upstream build
+         * @param search
+         *            - How far back the history may be walked
+         * @return the downstream build number, or null.
+         */
+        Integer find(final AbstractProject<?, ?> project, final AbstractBuild<?, ?> upstreamBuild, final DownstreamSearch search) {
+            final String key = key(upstreamBuild.getProject().getName(), upstreamBuild.getNumber());
+            final int start;
+            synchronized (this) {
+                final Integer number = builds.get(key);
+                if (number != null || exhausted) {
+                    return number;
+                }
+                start = scannedDownTo;
+            }
+
+            final int newest = project.getNextBuildNumber() - 1;
+            final List<AbstractBuild<?, ?>> inspected = new ArrayList<AbstractBuild<?, ?>>();
+            AbstractBuild<?, ?> build = (start == 0) ? project.getLastBuild() : project.getNearestOldBuild(start - 1);
+            boolean gaveUp = false;
+            while (build != null) {
+                if (search.isTooDeep(newest - build.getNumber()) || search.isTooOld(build, upstreamBuild)) {
+                    gaveUp = true;
+                    break;
+                }
+                inspected.add(build);
+                if (upstreamKeys(build).contains(key)) {
+                    break;
+                }
+                build = build.getPreviousBuild();
+            }
+
+            synchronized (this) {
+                for (final AbstractBuild<?, ?> inspectedBuild : inspected) {
+                    record(inspectedBuild);
+                }
+                if (!inspected.isEmpty()) {
+                    // the builds down to here have all been inspected, by this walk or by one that went further meanwhile
+                    final int lowest = inspected.get(inspected.size() - 1).getNumber();
+                    scannedDownTo = (scannedDownTo == 0) ? lowest : Math.min(scannedDownTo, lowest);
+                }
+                if (build == null) {
+                    exhausted = true;
+                }
+                if (gaveUp) {
+                    LOGGER.finer(String.format("Gave up on %s after %d builds of %s, %s", key, inspected.size(), //$NON-NLS-1$
+                            project.getName(), search));
+                } else {
+                    LOGGER.finer(String.format("Inspected %d builds of %s looking for %s", inspected.size(), //$NON-NLS-1$
+                            project.getName(), key));
+                }
+                return builds.get(key);
+            }
+        }
+
+        /**
+         * @param build
+         *            - A downstream build whose upstream causes should be recorded
+         */
+        synchronized void record(final AbstractBuild<?, ?> build) {
+            final int number = build.getNumber();
+            for (final String key : upstreamKeys(build)) {
+                final Integer existing = builds.get(key);
+                if (existing == null || existing < number) {
+                    builds.put(key, number);
+                }
+            }
+        }
+
+        /**
+         * Forgets a deleted build. An older build caused by the same upstream build takes its place if the walk has already passed
+         * it; otherwise the walk still finds it later.
+         *
+         * @param build
+         *            - A downstream build that is being deleted
+         */
+        synchronized void remove(final AbstractBuild<?, ?> build) {
+            final Integer number = build.getNumber();
+            final Set<String> lost = new HashSet<String>();
+            for (final String key : upstreamKeys(build)) {
+                if (number.equals(builds.get(key))) {
+                    builds.remove(key);
+                    lost.add(key);
+                }
+            }
+            if (lost.isEmpty() || scannedDownTo == 0) {
+                return;
+            }
+            AbstractBuild<?, ?> older = build.getPreviousBuild();
+            while (older != null && older.getNumber() >= scannedDownTo && !lost.isEmpty()) {
+                for (final String key : upstreamKeys(older)) {
+                    if (lost.remove(key)) {
+                        builds.put(key, older.getNumber());
+                    }
+                }
+                older = older.getPreviousBuild();
+            }
+        }
+    }
+
+    /**
+     * Keeps the index up to date as builds come and go.
+     */
+    @Extension
+    @SuppressWarnings("rawtypes")
+    public static final class RunListenerImpl extends RunListener<AbstractBuild> {
+        /**
+         * Listens to all {@link AbstractBuild}s.
+         */
+        public RunListenerImpl() {
+            super(AbstractBuild.class);
+        }
+
+        @Override
+        public void onStarted(final AbstractBuild build, final TaskListener listener) {
+            INSTANCE.onStarted(build);
+        }
+
+        @Override
+        public void onDeleted(final AbstractBuild build) {
+            INSTANCE.onDeleted(build);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2011, Centrum Systems Pty Ltd
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package au.com.centrumsystems.hudson.plugin.util;
+
+import hudson.model.AbstractBuild;
+
+/**
+ * How far back the history of a downstream project is searched for the build caused by an upstream build, see
+ * {@link DownstreamBuildIndex#getDownstreamBuild(hudson.model.AbstractProject, AbstractBuild, DownstreamSearch)}.
+ *
+ * Builds are walked newest-first, so once a bound is reached no older build can match either and the search gives up, instead of
+ * loading the rest of the history. Builds the index already knows about are found whatever the bounds.
+ *
+ * @author Centrum Systems
+ *
+ */
+public final class DownstreamSearch {
+
+    /** Searches the whole history. */
+    public static final DownstreamSearch UNBOUNDED = new DownstreamSearch(0, false);
+
+    /** How many builds of the downstream project are walked at most, 0 for no limit. */
+    private final int maxDepth;
+
+    /** Whether the walk stops at the first downstream build that started before the upstream build. */
+    private final boolean sinceUpstream;
+
+    /**
+     * @param maxDepth
+     *            - How many builds of the downstream project are walked at most, counting from the newest one; 0 or less for no limit
+     * @param sinceUpstream
+     *            - Whether the walk stops at the first downstream build that started before the upstream build did
+     */
+    public DownstreamSearch(final int maxDepth, final boolean sinceUpstream) {
+        this.maxDepth = Math.max(0, maxDepth);
+        this.sinceUpstream = sinceUpstream;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public boolean isSinceUpstream() {
+        return sinceUpstream;
+    }
+
+    /**
+     * @return true if this search walks the whole history.
+     */
+    public boolean isUnbounded() {
+        return maxDepth == 0 && !sinceUpstream;
+    }
+
+    /**
+     * @param depth
+     *            - How many builds of the downstream project are newer than the next build of the walk
+     * @return true if the walk may not go any deeper.
+     */
+    boolean isTooDeep(final int depth) {
+        return maxDepth > 0 && depth >= maxDepth;
+    }
+
+    /**
+     * @param downstreamBuild
+     *            - The next downstream build of the walk
+     * @param upstreamBuild
+     *            - The upstream build searched for
+     * @return true if the downstream build, and so every older one, started before the upstream build and is not searched.
+     */
+    boolean isTooOld(final AbstractBuild<?, ?> downstreamBuild, final AbstractBuild<?, ?> upstreamBuild) {
+        return sinceUpstream && downstreamBuild.getTimeInMillis() < upstreamBuild.getTimeInMillis();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof DownstreamSearch)) {
+            return false;
+        }
+        final DownstreamSearch other = (DownstreamSearch) obj;
+        return maxDepth == other.maxDepth && sinceUpstream == other.sinceUpstream;
+    }
+
+    @Override
+    public int hashCode() {
+        return maxDepth * 2 + (sinceUpstream ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "DownstreamSearch[maxDepth=" + maxDepth + ",sinceUpstream=" + sinceUpstream + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2011, Centrum Systems Pty Ltd
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package au.com.centrumsystems.hudson.plugin.util;
+
+import java.util.Map;
+
+/**
+ * Minimal streaming JSON writer that appends straight to a {@link StringBuilder}, so that any number of cards can be written into a
+ * single response without building an intermediate tree.
+ *
+ * Commas between members and elements are inserted automatically. Strings are escaped so that the output can also be inlined into a
+ * {@code <script>} element: {@code </} is written as {@code <\/}, and the line and paragraph separators are escaped as well.
+ *
+ * @author Centrum Systems
+ *
+ */
+public final class JSONWriter {
+
+    /** Hexadecimal digits, for unicode escapes. */
+    private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+    /** U+2028, a line terminator in JavaScript but not in JSON. */
+    private static final char LINE_SEPARATOR = 0x2028;
+
+    /** U+2029, a line terminator in JavaScript but not in JSON. */
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+    /** Deepest nesting supported. */
+    private static final int MAX_DEPTH = 32;
+
+    /** Where the JSON is written. */
+    private final StringBuilder out;
+
+    /** For each open object or array, whether a member or element has been written into it already. */
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+
+    /** Number of open objects and arrays. */
+    private int depth;
+
+    /** Whether a key has just been written, so that the next value is its value rather than an array element. */
+    private boolean afterKey;
+
+    /**
+     * Writes into a new buffer.
+     */
+    public JSONWriter() {
+        this(new StringBuilder(512));
+    }
+
+    /**
+     * @param out
+     *            where the JSON is written
+     */
+    public JSONWriter(final StringBuilder out) {
+        this.out = out;
+    }
+
+    /**
+     * Starts an object.
+     *
+     * @return this writer
+     */
+    public JSONWriter object() {
+        beforeValue();
+        out.append('{');
+        open();
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return this writer
+     */
+    public JSONWriter endObject() {
+        depth--;
+        out.append('}');
+        return this;
+    }
+
+    /**
+     * Starts an array.
+     *
+     * @return this writer
+     */
+    public JSONWriter array() {
+        beforeValue();
+        out.append('[');
+        open();
+        return this;
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return this writer
+     */
+    public JSONWriter endArray() {
+        depth--;
+        out.append(']');
+        return this;
+    }
+
+    /**
+     * Writes the key of the next member of the current object.
+     *
+     * @param name
+     *            the key
+     * @return this writer
+     */
+    public JSONWriter key(final String name) {
+        separate();
+        string(name);
+        out.append(':');
+        afterKey = true;
+        return this;
+    }
+
+    /**
+     * @param value
+     *            a string, possibly null
+     * @return this writer
+     */
+    public JSONWriter value(final String value) {
+        beforeValue();
+        if (value == null) {
+            out.append("null"); //$NON-NLS-1$
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    /**
+     * @param value
+     *            a number, possibly null
+     * @return this writer
+     */
+    public JSONWriter value(final Number value) {
+        beforeValue();
+        out.append(value == null ? "null" : value.toString()); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param value
+     *            a number
+     * @return this writer
+     */
+    public JSONWriter value(final long value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * @param value
+     *            a boolean
+     * @return this writer
+     */
+    public JSONWriter value(final boolean value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a string, number or boolean as the typed methods do, a {@link Map} as an object and an {@link Iterable} as an array, with
+     * their values written recursively.
+     *
+     * @param value
+     *            a value, possibly null
+     * @return this writer
+     */
+    public JSONWriter value(final Object value) {
+        if (value == null || value instanceof String) {
+            return value((String) value);
+        }
+        if (value instanceof Number) {
+            return value((Number) value);
+        }
+        if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        }
+        if (value instanceof Map) {
+            object();
+            for (final Map.Entry<?, ?> member : ((Map<?, ?>) value).entrySet()) {
+                key(String.valueOf(member.getKey()));
+                value(member.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof Iterable) {
+            array();
+            for (final Object element : (Iterable<?>) value) {
+                value(element);
+            }
+            return endArray();
+        }
+        throw new IllegalArgumentException("Not a JSON value: " + value.getClass().getName()); //$NON-NLS-1$
+    }
+
+    /**
+     * Shorthand for {@code key(name).value(value)}.
+     *
+     * @param name
+     *            the key
+     * @param value
+     *            a string, possibly null
+     * @return this writer
+     */
+    public JSONWriter member(final String name, final String value) {
+        return key(name).value(value);
+    }
+
+    /**
+     * Shorthand for {@code key(name).value(value)}.
+     *
+     * @param name
+     *            the key
+     * @param value
+     *            a number, possibly null
+     * @return this writer
+     */
+    public JSONWriter member(final String name, final Number value) {
+        return key(name).value(value);
+    }
+
+    /**
+     * Shorthand for {@code key(name).value(value)}.
+     *
+     * @param name
+     *            the key
+     * @param value
+     *            a number
+     * @return this writer
+     */
+    public JSONWriter member(final String name, final long value) {
+        return key(name).value(value);
+    }
+
+    /**
+     * Shorthand for {@code key(name).value(value)}.
+     *
+     * @param name
+     *            the key
+     * @param value
+     *            a boolean
+     * @return this writer
+     */
+    public JSONWriter member(final String name, final boolean value) {
+        return key(name).value(value);
+    }
+
+    /**
+     * @return the JSON written so far
+     */
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    /**
+     * Records that a new object or array has been opened.
+     */
+    private void open() {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply"); //$NON-NLS-1$
+        }
+        hasElements[depth++] = false;
+    }
+
+    /**
+     * Writes the separator that precedes a value, unless it is the value of a key.
+     */
+    private void beforeValue() {
+        if (afterKey) {
+            afterKey = false;
+        } else {
+            separate();
+        }
+    }
+
+    /**
+     * Writes a comma if the current object or array already has a member or element.
+     */
+    private void separate() {
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                out.append(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    /**
+     * @param value
+     *            a string to write quoted and escaped
+     */
+    private void string(final String value) {
+        out.append('"');
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                out.append("\\\""); //$NON-NLS-1$
+                break;
+            case '\\':
+                out.append("\\\\"); //$NON-NLS-1$
+                break;
+            case '\n':
+                out.append("\\n"); //$NON-NLS-1$
+                break;
+            case '\r':
+                out.append("\\r"); //$NON-NLS-1$
+                break;
+            case '\t':
+                out.append("\\t"); //$NON-NLS-1$
+                break;
+            case '/':
+                // "</script>" must not end the script element the JSON is inlined into
+                if (i > 0 && value.charAt(i - 1) == '<') {
+                    out.append('\\');
+                }
+                out.append(c);
+                break;
+            default:
+                if (c < ' ' || c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                    out.append("\\u").append(HEX[(c >> 12) & 0xf]).append(HEX[(c >> 8) & 0xf]) //$NON-NLS-1$
+                            .append(HEX[(c >> 4) & 0xf]).append(HEX[c & 0xf]);
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -25,20 +25,14 @@
 package au.com.centrumsystems.hudson.plugin.util;
 
 import hudson.model.DependencyGraph;
-import hudson.model.ParameterValue;
 import hudson.model.AbstractProject;
-import hudson.model.Descriptor;
 import hudson.model.Hudson;
-import hudson.model.ParameterDefinition;
 import hudson.model.ParametersAction;
-import hudson.model.ParametersDefinitionProperty;
-import hudson.tasks.Publisher;
-import hudson.util.DescribableList;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.ManualTriggerEdges;
 
 /**
  * Provides helper methods for #hudson.model.AbstractProject
@@ -94,31 +88,15 @@ public final class ProjectUtil {
      * @return - true: Manual trigger required; false: Manual trigger not required
      */
     public static boolean isManualTrigger(final AbstractProject<?, ?> upstreamProject, final AbstractProject<?, ?> downstreamProject) {
-
-        boolean manualTrigger = false;
-        if ((upstreamProject != null) && (downstreamProject != null)) {
-            final DescribableList<Publisher, Descriptor<Publisher>> upstreamPublishersLists = upstreamProject.getPublishersList();
-
-            for (final Publisher upstreamPub : upstreamPublishersLists) {
-                if (upstreamPub instanceof BuildPipelineTrigger) {
-                    final String manualDownstreamProjects = ((BuildPipelineTrigger) upstreamPub).getDownstreamProjectNames();
-                    final String[] downstreamProjs = manualDownstreamProjects.split(",");
-                    for (final String nextProj : downstreamProjs) {
-                        if (downstreamProject.getName().equalsIgnoreCase(nextProj.trim())) {
-                            manualTrigger = true;
-                            break;
-                        }
-                    }
-                }
-            }
+        if ((upstreamProject == null) || (downstreamProject == null)) {
+            return false;
         }
-
-        return manualTrigger;
-
+        return ManualTriggerEdges.get().isManualTrigger(upstreamProject, downstreamProject);
     }
 
     /**
-     * Gets the ParametersAction of an AbstractProject
+     * Gets the ParametersAction of an AbstractProject, i.e. the default values of its parameters. The action is cached by
+     * {@link DefaultParametersCache} until the project is saved, and shared: merge it, do not attach it to a build.
      * 
      * @param project
      *            - The AbstractProject
@@ -126,19 +104,7 @@ public final class ProjectUtil {
      */
     public static ParametersAction getProjectParametersAction(final AbstractProject<?, ?> project) {
         if (project != null) {
-            final ParametersDefinitionProperty property = project.getProperty(ParametersDefinitionProperty.class);
-            if (property == null) {
-                return null;
-            }
-
-            final List<ParameterValue> parameters = new ArrayList<ParameterValue>();
-            for (final ParameterDefinition pd : property.getParameterDefinitions()) {
-                final ParameterValue param = pd.getDefaultParameterValue();
-                if (param != null) {
-                    parameters.add(param);
-                }
-            }
-            return new ParametersAction(parameters);
+            return DefaultParametersCache.get().getDefaultParameters(project);
         } else {
             return null;
         }
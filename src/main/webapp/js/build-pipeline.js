@@ -1,100 +1,198 @@
-var BuildPipeline = function(viewProxy, buildCardTemplate, projectCardTemplate, refreshFrequency){
-	this.buildCardTemplate = buildCardTemplate;
-	this.projectCardTemplate = projectCardTemplate;
-	this.buildProxies = {};
-    this.projectProxies = {};
+var BuildPipeline = function(viewProxy, refreshFrequency, revision, cardPrefix){
 	this.viewProxy = viewProxy;
 	this.refreshFrequency = refreshFrequency;
+	//revision of the server side state the cards on the page reflect
+	this.revision = revision;
+	//card id -> ticket of the build that was just scheduled for it
+	this.tickets = {};
+	//card id -> number of the build this page has scheduled and shows on the card; other pages still show the card's own build
+	this.shown = {};
+	//when the outstanding update request was sent, 0 if there is none
+	this.pollStartedAt = 0;
+	this.pollTimeout = 30000;
+	//DOM ids of the cards of this view start with the prefix, as the same pipeline may be shown by other views of the page
+	this.cardPrefix = cardPrefix;
+	BuildPipeline.views[cardPrefix] = this;
 };
 
+//the views rendered on the page, by the prefix of their DOM ids; the handlers of the cards find their view here
+BuildPipeline.views = {};
+
 BuildPipeline.prototype = {
-	showProgress : function(id, dependencies) {
+	startPolling : function(formId, push, updatesUrl) {
 		var buildPipeline = this;
-		var intervalId = setInterval(function(){
-			buildPipeline.buildProxies[id].asJSON(function(data){
-				var buildData = jQuery.parseJSON(data.responseObject());
-				if (buildData.build.progress > 0) {
-					buildPipeline.updateBuildCardFromJSON(buildData, false);
-				} else {
-					buildPipeline.updateBuildCardFromJSON(buildData, true);
-                    if (!jQuery.isEmptyObject(buildPipeline.projectProxies)) {
-                        buildPipeline.updateProjectCard(buildData.project.id);
-                    }
-					clearInterval(intervalId);
-                    //refresh all build cards since some statuses will be invalid for older builds
-                    buildPipeline.updateAllBuildCards(dependencies);
-                    // trigger all dependency tracking
-                    jQuery.each(dependencies, function(){
-                        jQuery("#pipelines").trigger("show-status-" + this);
-                    });
-
+		buildPipeline.formId = formId;
+		buildPipeline.push = push;
+		buildPipeline.updatesUrl = updatesUrl;
+		if (push) {
+			//the server holds on to each request until something changes, so only a request that got lost has to be restarted
+			buildPipeline.pollTimeout = 60000;
+			buildPipeline.poll();
+			setInterval(function(){
+				buildPipeline.poll();
+			}, buildPipeline.pollTimeout);
+		} else {
+			setInterval(function(){
+				buildPipeline.poll();
+			}, buildPipeline.refreshFrequency);
+		}
+	},
+	poll : function() {
+		var buildPipeline = this;
+		var now = new Date().getTime();
+		//do not pile up requests on a slow server, but give up on one that got lost
+		if (buildPipeline.pollStartedAt > 0 && now - buildPipeline.pollStartedAt < buildPipeline.pollTimeout) {
+			return;
+		}
+		buildPipeline.pollStartedAt = now;
+		if (!buildPipeline.push && buildPipeline.updatesUrl) {
+			//a plain GET, answered with 304 Not Modified while nothing changes
+			jQuery.ajax({
+				url : buildPipeline.updatesUrl,
+				data : {
+					formId : buildPipeline.formId,
+					since : buildPipeline.revision,
+					tickets : JSON.stringify(buildPipeline.tickets),
+					shown : JSON.stringify(buildPipeline.shown),
+					cardPrefix : buildPipeline.cardPrefix
+				},
+				dataType : "html",
+				ifModified : true,
+				complete : function(xhr, status) {
+					buildPipeline.pollStartedAt = 0;
+					if (status == "success") {
+						buildPipeline.applyUpdates(xhr.responseText);
+					}
 				}
 			});
-		}, buildPipeline.refreshFrequency);
+			return;
+		}
+		var method = buildPipeline.push ? 'waitForBuildCardUpdates' : 'renderBuildCardUpdates';
+		var tickets = JSON.stringify(buildPipeline.tickets);
+		var shown = JSON.stringify(buildPipeline.shown);
+		buildPipeline.viewProxy[method](buildPipeline.formId, buildPipeline.revision, tickets, shown, buildPipeline.cardPrefix, function(data){
+			buildPipeline.pollStartedAt = 0;
+			if (buildPipeline.applyUpdates(data.responseText) && buildPipeline.push) {
+				buildPipeline.poll();
+			}
+		});
 	},
-	updateBuildCard : function(id) {
+	applyUpdates : function(html) {
+		//the changed cards, rendered on the server by the same pages as the cards the page was rendered with
 		var buildPipeline = this;
-		buildPipeline.buildProxies[id].asJSON(function(data){
-			buildPipeline.updateBuildCardFromJSON(jQuery.parseJSON(data.responseObject()), true);
+		var updates = jQuery("<div></div>").html(html).children(".build-card-updates");
+		if (updates.attr("data-reload") == "true") {
+			//the server no longer knows the pipeline this page shows
+			window.location.reload();
+			return false;
+		}
+		buildPipeline.revision = Number(updates.attr("data-revision"));
+		//the cards now show the builds they were waiting for
+		updates.find(".build-started > li").each(function(){
+			var id = jQuery(this).attr("data-id");
+			delete buildPipeline.tickets[id];
+			buildPipeline.shown[id] = Number(jQuery(this).attr("data-number"));
+		});
+		updates.children(".build-card-update").each(function(){
+			buildPipeline.replaceCard("build", jQuery(this), jQuery(this).attr("data-building") != "true");
 		});
+		updates.children(".project-card-update").each(function(){
+			buildPipeline.replaceCard("project", jQuery(this), true);
+		});
+		return true;
 	},
-    updateAllBuildCards : function(dependenciesNotToUpdate) {
-        var buildPipeline = this;
-        jQuery.each(buildPipeline.buildProxies, function(key, value){
-            if (jQuery.inArray(parseInt(key), dependenciesNotToUpdate) < 0) {
-                buildPipeline.updateBuildCard(key);
-            }
-        });
-    },
-	updateProjectCard : function(id) {
+	loadPipelineGroupsOnScroll : function(url, offset) {
 		var buildPipeline = this;
-		buildPipeline.projectProxies[id].asJSON(function(data){
-			buildPipeline.updateProjectCardFromJSON(jQuery.parseJSON(data.responseObject()), true);
+		buildPipeline.pipelineGroupsUrl = url;
+		buildPipeline.pipelineGroupsOffset = offset;
+		jQuery(window).scroll(function(){
+			buildPipeline.loadPipelineGroupsIfVisible();
 		});
+		buildPipeline.loadPipelineGroupsIfVisible();
 	},
-	updateBuildCardFromJSON : function(buildAsJSON, fadeIn) {
+	loadPipelineGroupsIfVisible : function() {
 		var buildPipeline = this;
-		jQuery("#build-" + buildAsJSON.id).empty();
-		jQuery(buildPipeline.buildCardTemplate(buildAsJSON)).hide().appendTo("#build-" + buildAsJSON.id).fadeIn(fadeIn ? 1000 : 0);
+		if (buildPipeline.pipelineGroupsUrl == null || buildPipeline.loadingPipelineGroups) {
+			return;
+		}
+		//start loading while the end of the pipelines is still a screen away
+		var pipelines = jQuery("#pipelines");
+		if (pipelines.offset().top + pipelines.height() > jQuery(window).scrollTop() + 2 * jQuery(window).height()) {
+			return;
+		}
+		buildPipeline.loadingPipelineGroups = true;
+		jQuery.get(buildPipeline.pipelineGroupsUrl, {formId : buildPipeline.formId, offset : buildPipeline.pipelineGroupsOffset, cardPrefix : buildPipeline.cardPrefix}, function(html){
+			var before = pipelines.children("tbody.pipelineGroup").length;
+			pipelines.append(html);
+			var loaded = pipelines.children("tbody.pipelineGroup").length - before;
+			buildPipeline.pipelineGroupsOffset += loaded;
+			buildPipeline.loadingPipelineGroups = false;
+			if (loaded == 0) {
+				//no more instances of the pipeline
+				buildPipeline.pipelineGroupsUrl = null;
+			} else {
+				buildPipeline.loadPipelineGroupsIfVisible();
+			}
+		}, "html");
 	},
-	updateProjectCardFromJSON : function(projectAsJSON, fadeIn) {
-		var buildPipeline = this;
-		jQuery("#project-" + projectAsJSON.id).empty();
-		jQuery(buildPipeline.projectCardTemplate(projectAsJSON)).hide().appendTo("#project-" + projectAsJSON.id).fadeIn(fadeIn ? 1000 : 0);
+	expandBuildCard : function(id) {
+		this.viewProxy.expandBuildCard(this.formId, id, function(){
+			window.location.reload();
+		});
 	},
-	updateNextBuildAndShowProgress : function(id, nextBuildNumber, dependencies) {
-		var buildPipeline = this;
-		//try to get the updated build, that's not pending
-		var intervalId = setInterval(function(){
-			buildPipeline.buildProxies[id].updatePipelineBuild(nextBuildNumber, function(updated){
-				if (updated.responseObject()) {
-					buildPipeline.showProgress(id, dependencies);
-					clearInterval(intervalId);
-				}
-			});
-		}, buildPipeline.refreshFrequency);
+	watchNextBuild : function(id, ticket) {
+		this.tickets[id] = ticket;
+		this.poll();
+	},
+	updateBuildCard : function(id) {
+		//the poll brings every card that changed up to date, this one included
+		this.poll();
+	},
+	updateProjectCard : function(id) {
+		this.poll();
+	},
+	domId : function(kind, id) {
+		return "#" + kind + "-" + this.cardPrefix + "-" + id;
+	},
+	replaceCard : function(kind, update, fadeIn) {
+		var cell = jQuery(this.domId(kind, update.attr("data-id")));
+		cell.empty();
+		update.children().hide().appendTo(cell).fadeIn(fadeIn ? 1000 : 0);
 	},
 	triggerBuild : function(id, upstreamProjectName, upstreamBuildNumber, triggerProjectName, dependencyIds) {
 		var buildPipeline = this;
 		buildPipeline.viewProxy.triggerManualBuild(upstreamBuildNumber, triggerProjectName, upstreamProjectName, function(data){
-			buildPipeline.updateNextBuildAndShowProgress(id, data.responseObject(), dependencyIds);
+			buildPipeline.watchNextBuild(id, data.responseObject());
+		});
+	},
+	triggerBuilds : function(triggers) {
+		// triggers: [{id: card id, upstreamProjectName: ..., upstreamBuildNumber: ..., triggerProjectName: ...}, ...]
+		var buildPipeline = this;
+		var json = Object.toJSON ? Object.toJSON(triggers) : JSON.stringify(triggers);
+		buildPipeline.viewProxy.triggerManualBuilds(json, function(data){
+			jQuery.each(jQuery.parseJSON(data.responseObject()), function(index, result) {
+				if (result.scheduled && result.id != null) {
+					buildPipeline.tickets[result.id] = result.ticket;
+				}
+			});
+			buildPipeline.poll();
 		});
 	},
 	retryBuild : function(id, triggerProjectName, dependencyIds) {
 		var buildPipeline = this;
 		buildPipeline.viewProxy.retryBuild(triggerProjectName, function(data){
-			buildPipeline.updateNextBuildAndShowProgress(id, data.responseObject(), dependencyIds);
+			buildPipeline.watchNextBuild(id, data.responseObject());
 		});
 	},
 	rerunBuild : function(id, buildExternalizableId, dependencyIds) {
 		var buildPipeline = this;
 		buildPipeline.viewProxy.rerunBuild(buildExternalizableId, function(data){
-			buildPipeline.updateNextBuildAndShowProgress(id, data.responseObject(), dependencyIds);
+			buildPipeline.watchNextBuild(id, data.responseObject());
 		});
 	},
 	showSpinner : function(id){
-		jQuery("#status-bar-" + id).html('<table class="progress-bar" align="center"><tbody><tr class="unknown"><td></td></tr></tbody></table>');
-		jQuery("#icons-" + id).empty();
+		jQuery(this.domId("status-bar", id)).html('<table class="progress-bar" align="center"><tbody><tr class="unknown"><td></td></tr></tbody></table>');
+		jQuery(this.domId("icons", id)).empty();
 	},
 	fillDialog : function(href, title) {
 		jQuery.fancybox({
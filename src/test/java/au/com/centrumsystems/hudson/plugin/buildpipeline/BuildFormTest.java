@@ -6,10 +6,17 @@ import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.tasks.BuildTrigger;
 
+import java.util.Map;
+
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.jvnet.hudson.test.HudsonTestCase;
 
+import au.com.centrumsystems.hudson.plugin.util.JSONWriter;
+
 public class BuildFormTest extends HudsonTestCase {
     @Override
     @Before
@@ -32,4 +39,95 @@ public class BuildFormTest extends HudsonTestCase {
 
         assertThat(bf.getStatus(), is(pb.getCurrentBuildResult()));
     }
+
+    @Test
+    public void testDependenciesAreResolvedOnDemand() throws Exception {
+        final String proj1 = "Project1";
+        final String proj2 = "Project2";
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, false));
+        hudson.rebuildDependencyGraph();
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+
+        final BuildForm bf = new BuildForm(new PipelineBuild(build1, project1, null));
+        assertTrue(bf.hasDependencies());
+        assertThat(bf.getDependencies().size(), is(1));
+        assertSame(bf.getDependencies(), bf.getDependencies());
+        assertThat(bf.getDependencies().get(0).getExpandKey(), is(project2.getFullName() + "#1"));
+        assertFalse(bf.getDependencies().get(0).hasDependencies());
+        assertFalse(bf.isTruncated());
+    }
+
+    @Test
+    public void testAsJSON() throws Exception {
+        final String proj1 = "Project1";
+        final String proj2 = "Project2";
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, false));
+        hudson.rebuildDependencyGraph();
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+
+        final BuildForm bf = new BuildForm(new PipelineBuild(build1, project1, null));
+        final JSONObject json = JSONObject.fromObject(bf.asJSON());
+        assertThat(json.getString("id"), is(bf.getId()));
+        final JSONObject build = json.getJSONObject("build");
+        assertThat(build.getInt("number"), is(1));
+        assertThat(build.getString("status"), is("SUCCESS"));
+        assertTrue(build.getBoolean("isLatestBuild"));
+        assertTrue(build.getBoolean("isComplete"));
+        assertThat(build.getJSONArray("dependencyIds").size(), is(1));
+        assertThat(json.getJSONObject("project").getString("name"), is(proj1));
+        assertEquals(JSONNull.getInstance(), json.getJSONObject("upstream").get("buildNumber"));
+    }
+
+    @Test
+    public void testCardIsWhatTheJSONShows() throws Exception {
+        final String proj1 = "Project1";
+        final String proj2 = "Project2";
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, false));
+        hudson.rebuildDependencyGraph();
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+
+        final BuildForm bf = new BuildForm(new PipelineBuild(build1, project1, null));
+        final Map<String, Object> card = bf.getCard();
+        assertThat((String) card.get("id"), is(bf.getId()));
+        final Map<?, ?> build = (Map<?, ?>) card.get("build");
+        assertThat((Integer) build.get("number"), is(1));
+        assertEquals(Boolean.TRUE, build.get("isComplete"));
+        assertNull(((Map<?, ?>) card.get("upstream")).get("buildNumber"));
+        assertEquals(JSONObject.fromObject(bf.asJSON()), JSONObject.fromObject(new JSONWriter().value((Object) card).toString()));
+    }
+
+    @Test
+    public void testIdsAreStableAcrossRenders() throws Exception {
+        final String proj1 = "Project 1";
+        final String proj2 = "Project2";
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, false));
+        hudson.rebuildDependencyGraph();
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+
+        final String[] ids = new String[2];
+        for (int render = 0; render < 2; render++) {
+            final DefaultBuildGridImpl grid = new DefaultBuildGridImpl();
+            final BuildForm bf = new BuildForm(new PipelineBuild(build1, project1, null));
+            grid.set(0, 0, bf);
+            grid.set(0, 1, bf.getDependencies().get(0));
+            ids[render] = bf.getDependencies().get(0).getId();
+            assertThat(bf.getId(), is("Project_00201-1-1-0-0"));
+            assertThat(bf.getProjectId(), is("Project_00201"));
+            assertThat(bf.getDependencyIds().get(0), is(ids[render]));
+        }
+        assertThat(ids[0], is(ids[1]));
+        assertThat(ids[0], is("Project2-1-1-0-1"));
+    }
 }
@@ -24,6 +24,13 @@
  */
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import hudson.model.AbstractBuild;
 import hudson.model.Action;
 import hudson.model.FreeStyleBuild;
 import hudson.model.ItemGroup;
@@ -31,16 +38,31 @@ import hudson.model.TopLevelItem;
 import hudson.model.Cause.UpstreamCause;
 import hudson.model.FreeStyleProject;
 import hudson.model.Hudson;
+import hudson.model.InvisibleAction;
 import hudson.model.Job;
 import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.parameterizedtrigger.AbstractBuildParameters;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.servlet.RequestDispatcher;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.jvnet.hudson.test.HudsonTestCase;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.ArgumentCaptor;
+
+import com.gargoylesoftware.htmlunit.html.HtmlAnchor;
+import com.gargoylesoftware.htmlunit.html.HtmlElement;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 
 import au.com.centrumsystems.hudson.plugin.buildpipeline.trigger.BuildPipelineTrigger;
 
@@ -271,6 +293,428 @@ public class BuildPipelineViewTest extends HudsonTestCase {
 		assertNull(testView.getBuildPipelineForm());
 	}
 
+	@Test
+	public void testGetBuildPipelineFormIsCached() throws Exception {
+		final String bpViewName = "MyTestView";
+		final String bpViewTitle = "MyTestViewTitle";
+		final String proj1 = "Proj1";
+		final String proj2 = "Proj2";
+		final String noOfBuilds = "5";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		createFreeStyleProject(proj2);
+		project1.getPublishersList().add(new BuildPipelineTrigger(proj2, null));
+		Hudson.getInstance().rebuildDependencyGraph();
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView(bpViewName, bpViewTitle, new DownstreamProjectGridBuilder(proj1), noOfBuilds, false);
+
+		final BuildPipelineForm form = testView.getBuildPipelineForm();
+		assertSame(form, testView.getBuildPipelineForm());
+
+		// a new build of a project in the pipeline invalidates the cached form
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+		final BuildPipelineForm newForm = testView.getBuildPipelineForm();
+		assertNotSame(form, newForm);
+		assertEquals(2, newForm.getBuildGrids().size());
+	}
+
+	@Test
+	public void testViewsShowingTheSamePipelineShareTheirForm() throws Exception {
+		final String proj1 = "Proj1";
+		final String proj2 = "Proj2";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		createFreeStyleProject(proj2);
+		project1.getPublishersList().add(new BuildPipelineTrigger(proj2, null));
+		Hudson.getInstance().rebuildDependencyGraph();
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView view1 = BuildPipelineViewFactory.getBuildPipelineView("View1", "View1",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		final BuildPipelineView view2 = BuildPipelineViewFactory.getBuildPipelineView("View2", "View2",
+				new DownstreamProjectGridBuilder(proj1), "5", true);
+		final BuildPipelineView view3 = BuildPipelineViewFactory.getBuildPipelineView("View3", "View3",
+				new DownstreamProjectGridBuilder(proj1), "10", false);
+
+		final BuildPipelineForm form = view1.getBuildPipelineForm();
+		assertSame(form, view2.getBuildPipelineForm());
+		final BuildPipelineForm form3 = view3.getBuildPipelineForm();
+		assertNotSame(form, form3);
+
+		// views of the same pipeline showing different numbers of builds do not evict each other
+		assertSame(form, view1.getBuildPipelineForm());
+		assertSame(form3, view3.getBuildPipelineForm());
+
+		// a view that expanded a card has a grid of its own
+		view2.expandBuildCard(form.getId(), form.getBuildForms().get(0).getId());
+		assertNotSame(form, view2.getBuildPipelineForm());
+		assertSame(form, view1.getBuildPipelineForm());
+	}
+
+	@Test
+	public void testGetBuildCardUpdates() throws Exception {
+		final String bpViewName = "MyTestView";
+		final String bpViewTitle = "MyTestViewTitle";
+		final String proj1 = "Proj1";
+		final String proj2 = "Proj2";
+		final String noOfBuilds = "5";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		final FreeStyleProject project2 = createFreeStyleProject(proj2);
+		project1.getPublishersList().add(new BuildPipelineTrigger(proj2, null));
+		Hudson.getInstance().rebuildDependencyGraph();
+		final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView(bpViewName, bpViewTitle, new DownstreamProjectGridBuilder(proj1), noOfBuilds, false);
+		final long revision = testView.getLatestRevision();
+		final BuildPipelineForm form = testView.getBuildPipelineForm();
+
+		// nothing changed yet
+		JSONObject updates = JSONObject.fromObject(testView.getBuildCardUpdates(form.getId(), revision, null, null));
+		assertEquals(revision, updates.getLong("revision"));
+		assertTrue(updates.getJSONArray("builds").isEmpty());
+
+		// the manually triggered build shows up on the pending card
+		assertBuildStatusSuccess(project2.scheduleBuild2(0, new UpstreamCause((Run<?, ?>) build1)));
+		waitUntilNoActivity();
+		updates = JSONObject.fromObject(testView.getBuildCardUpdates(form.getId(), revision, "{}", null));
+		assertTrue(updates.getLong("revision") > revision);
+		final JSONArray builds = updates.getJSONArray("builds");
+		assertEquals(1, builds.size());
+		assertEquals(1, builds.getJSONObject(0).getJSONObject("build").getInt("number"));
+
+		// a form the view does not know any more asks the browser to reload
+		assertTrue(JSONObject.fromObject(testView.getBuildCardUpdates(-1, revision, null, null)).getBoolean("reload"));
+	}
+
+	@Test
+	public void testBuildCardUpdatesAreConditional() throws Exception {
+		final String proj1 = "Proj1";
+		final String proj2 = "Proj2";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		createFreeStyleProject(proj2);
+		project1.getPublishersList().add(new BuildPipelineTrigger(proj2, null));
+		Hudson.getInstance().rebuildDependencyGraph();
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView("MyTestView", "MyTestViewTitle",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		final long revision = testView.getLatestRevision();
+		final BuildPipelineForm form = testView.getBuildPipelineForm();
+
+		// the first request gets the updates, rendered with the card pages, and their entity tag
+		StaplerRequest req = updatesRequest(form, revision, null);
+		StaplerResponse rsp = mock(StaplerResponse.class);
+		testView.doBuildCardUpdates(req, rsp);
+		final String entityTag = "\"" + form.getId() + "-" + testView.getConfigVersion() + "-" + revision + "-"
+				+ Integer.toHexString(Hudson.getAuthentication().getName().hashCode()) + "\"";
+		verify(rsp).setHeader("ETag", entityTag);
+		final ArgumentCaptor<BuildCardUpdates> updates = ArgumentCaptor.forClass(BuildCardUpdates.class);
+		verify(req).setAttribute(eq("updates"), updates.capture());
+		assertTrue(updates.getValue().getBuilds().isEmpty());
+		verify(req).setAttribute("cardPrefix", "MyTestView-1");
+
+		// asking again with the tag gets 304 while nothing changes
+		req = updatesRequest(form, revision, entityTag);
+		rsp = mock(StaplerResponse.class);
+		testView.doBuildCardUpdates(req, rsp);
+		verify(rsp).setStatus(StaplerResponse.SC_NOT_MODIFIED);
+		verify(req, never()).getView(any(Object.class), eq("buildCardUpdates.jelly"));
+
+		// a new build in the pipeline changes the tag
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+		rsp = mock(StaplerResponse.class);
+		testView.doBuildCardUpdates(req, rsp);
+		verify(rsp, never()).setStatus(StaplerResponse.SC_NOT_MODIFIED);
+	}
+
+	@Test
+	public void testReconfiguredViewGetsNewEntityTags() throws Exception {
+		final String proj1 = "Proj1";
+		final String proj2 = "Proj2";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		createFreeStyleProject(proj2);
+		project1.getPublishersList().add(new BuildPipelineTrigger(proj2, null));
+		Hudson.getInstance().rebuildDependencyGraph();
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView("MyTestView", "MyTestViewTitle",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		final long revision = testView.getLatestRevision();
+		final BuildPipelineForm form = testView.getBuildPipelineForm();
+
+		StaplerResponse rsp = mock(StaplerResponse.class);
+		testView.doBuildCardUpdates(updatesRequest(form, revision, null), rsp);
+		final ArgumentCaptor<String> entityTag = ArgumentCaptor.forClass(String.class);
+		verify(rsp).setHeader(eq("ETag"), entityTag.capture());
+
+		// the view is reconfigured, the form it shares with other views stays the same
+		final StaplerRequest configureRequest = mock(StaplerRequest.class);
+		when(configureRequest.getSubmittedForm()).thenReturn(new JSONObject());
+		testView.submit(configureRequest);
+		final BuildPipelineForm newForm = testView.getBuildPipelineForm();
+
+		// the browser asking with its old tag gets the new page
+		rsp = mock(StaplerResponse.class);
+		final StaplerRequest req = updatesRequest(newForm, revision, entityTag.getValue());
+		testView.doBuildCardUpdates(req, rsp);
+		verify(rsp, never()).setStatus(StaplerResponse.SC_NOT_MODIFIED);
+		verify(req).getView(testView, "buildCardUpdates.jelly");
+	}
+
+	@Test
+	public void testPageIsNotConditional() throws Exception {
+		final String proj1 = "Proj1";
+		buildAndAssertSuccess(createFreeStyleProject(proj1));
+		hudson.addView(new BuildPipelineView("MyTestView", "MyTestViewTitle", new DownstreamProjectGridBuilder(proj1), "5", false));
+
+		// the page carries the sidebar, queue and executors of Jenkins too, which the entity tag of the form knows nothing about
+		final WebClient webClient = createWebClient();
+		webClient.setJavaScriptEnabled(false);
+		assertNull(webClient.goTo("view/MyTestView/").getWebResponse().getResponseHeaderValue("ETag"));
+	}
+
+	@Test
+	public void testPageRecordsItsFormOnce() throws Exception {
+		final String proj1 = "Proj1";
+		buildAndAssertSuccess(createFreeStyleProject(proj1));
+		hudson.addView(new BuildPipelineView("MyTestView", "MyTestViewTitle", new DownstreamProjectGridBuilder(proj1), "5", false));
+		PipelineMetrics.get().reset();
+
+		final WebClient webClient = createWebClient();
+		webClient.setJavaScriptEnabled(false);
+		webClient.goTo("view/MyTestView/");
+
+		final JSONObject view = JSONObject.fromObject(PipelineMetrics.get().toJSON()).getJSONObject("views").getJSONObject("MyTestView");
+		assertEquals(1, view.getJSONObject("operations").getJSONObject("getBuildPipelineForm").getInt("count"));
+		// one project card and one build card
+		assertEquals(2, view.getInt("cellsRendered"));
+	}
+
+	@Test
+	public void testCardsEscapeProjectNames() throws Exception {
+		final String proj1 = "Proj'1\"";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		buildAndAssertSuccess(project1);
+		hudson.addView(new BuildPipelineView("MyTestView", "MyTestViewTitle", new DownstreamProjectGridBuilder(proj1), "5", false));
+
+		final WebClient webClient = createWebClient();
+		webClient.setJavaScriptEnabled(false);
+		final HtmlPage page = webClient.goTo("view/MyTestView/");
+
+		final HtmlAnchor link = page.getFirstByXPath("//td[starts-with(@id, 'build-')]//a");
+		assertEquals(proj1, link.getAttribute("title"));
+		assertTrue(link.asText().endsWith(proj1));
+		final HtmlElement console = page.getFirstByXPath("//td[starts-with(@id, 'build-')]//span[@class='pointer']");
+		assertTrue(console.getAttribute("onclick").endsWith("'Console output for Proj\\'1\\\" #1')"));
+	}
+
+	@Test
+	public void testPageShowsOnlyTheFirstPageOfAFormScrolledFurther() throws Exception {
+		final String proj1 = "Proj1";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		for (int i = 0; i < 12; i++) {
+			buildAndAssertSuccess(project1);
+		}
+		final BuildPipelineView testView = new BuildPipelineView("MyTestView", "MyTestViewTitle", new DownstreamProjectGridBuilder(
+				proj1), "20", false);
+		hudson.addView(testView);
+
+		// another page of the same form scrolled down to the last instances
+		final BuildPipelineForm form = testView.getBuildPipelineForm();
+		assertEquals(2, form.getBuildGrids(testView.getBuildGridPageSize(), testView.getBuildGridPageSize()).size());
+		assertEquals(12, form.getBuildGrids().size());
+
+		final WebClient webClient = createWebClient();
+		webClient.setJavaScriptEnabled(false);
+		final HtmlPage page = webClient.goTo("view/MyTestView/");
+		assertEquals(testView.getBuildGridPageSize(), page.getByXPath("//div[@class='build-number-pipeline']").size());
+		assertTrue(page.getWebResponse().getContentAsString().contains("pipelineGroups\", " + testView.getBuildGridPageSize() + ");"));
+	}
+
+	private static StaplerRequest updatesRequest(final BuildPipelineForm form, final long since, final String ifNoneMatch)
+			throws IOException {
+		final StaplerRequest req = mock(StaplerRequest.class);
+		when(req.getParameter("formId")).thenReturn(String.valueOf(form.getId()));
+		when(req.getParameter("since")).thenReturn(String.valueOf(since));
+		when(req.getParameter("cardPrefix")).thenReturn("MyTestView-1");
+		when(req.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+		when(req.getView(any(Object.class), eq("buildCardUpdates.jelly"))).thenReturn(mock(RequestDispatcher.class));
+		return req;
+	}
+
+	@Test
+	public void testRerunBuildReturnsBeforeTheBuildCompletes() throws Exception {
+		final String proj1 = "Proj1";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView("MyTestView", "MyTestViewTitle",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		final long ticket = testView.rerunBuild(build1.getExternalizableId());
+		assertTrue(project1.isInQueue() || project1.isBuilding() || project1.getBuildByNumber(2) != null);
+
+		waitUntilNoActivity();
+		final JSONObject status = JSONObject.fromObject(testView.getBuildStatus(proj1, ticket));
+		assertEquals(ticket, status.getLong("ticket"));
+		assertEquals(2, status.getInt("number"));
+		assertEquals("SUCCESS", status.getString("status"));
+	}
+
+	@Test
+	public void testScheduledBuildIsOnlyShownToThePageThatScheduledIt() throws Exception {
+		final String proj1 = "Proj1";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView("MyTestView", "MyTestViewTitle",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		final long revision = testView.getLatestRevision();
+		final BuildPipelineForm form = testView.getBuildPipelineForm();
+		final BuildForm card = form.getBuildForms().get(0);
+		final long ticket = testView.rerunBuild(build1.getExternalizableId());
+		waitUntilNoActivity();
+
+		// the page that scheduled the build is told which build started for its card
+		JSONObject updates = JSONObject.fromObject(testView.getBuildCardUpdates(form.getId(), revision,
+				"{\"" + card.getId() + "\":" + ticket + "}", null));
+		assertEquals(2, updates.getJSONObject("started").getInt(card.getId()));
+		assertEquals(2, updates.getJSONArray("builds").getJSONObject(0).getJSONObject("build").getInt("number"));
+
+		// other pages of the shared form still show the build of the card
+		updates = JSONObject.fromObject(testView.getBuildCardUpdates(form.getId(), revision, null, null));
+		assertEquals(1, updates.getJSONArray("builds").getJSONObject(0).getJSONObject("build").getInt("number"));
+
+		// the page that scheduled the build keeps showing it
+		updates = JSONObject.fromObject(testView.getBuildCardUpdates(form.getId(), revision, null, "{\"" + card.getId() + "\":2}"));
+		assertEquals(card.getId(), updates.getJSONArray("builds").getJSONObject(0).getString("id"));
+		assertEquals(2, updates.getJSONArray("builds").getJSONObject(0).getJSONObject("build").getInt("number"));
+	}
+
+	@Test
+	public void testBuildStatusFollowsTheTicketedQueueItem() throws Exception {
+		final String proj1 = "Proj1";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+		// keep the scheduled builds in the queue
+		project1.setQuietPeriod(3600);
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView("MyTestView", "MyTestViewTitle",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		final long ticket = testView.rerunBuild(build1.getExternalizableId());
+		// the queue folds the second request into the waiting item, which then carries both tickets
+		final long folded = testView.rerunBuild(build1.getExternalizableId());
+		assertEquals("PENDING", JSONObject.fromObject(testView.getBuildStatus(proj1, ticket)).getString("status"));
+		assertEquals("PENDING", JSONObject.fromObject(testView.getBuildStatus(proj1, folded)).getString("status"));
+		assertEquals(1, Hudson.getInstance().getQueue().getItems(project1).size());
+
+		// a queued item of the project that was not scheduled with the ticket does not answer for it
+		final JSONObject unknown = JSONObject.fromObject(testView.getBuildStatus(proj1, folded + 1));
+		assertTrue(unknown.getJSONObject("number").isNullObject());
+		assertTrue(unknown.getJSONObject("status").isNullObject());
+
+		Hudson.getInstance().getQueue().clear();
+		assertTrue(JSONObject.fromObject(testView.getBuildStatus(proj1, ticket)).getJSONObject("status").isNullObject());
+	}
+
+	@Test
+	public void testTriggerManualBuilds() throws Exception {
+		final String proj1 = "Proj1";
+		final String proj2 = "Proj2";
+		final String proj3 = "Proj3";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		final FreeStyleProject project2 = createFreeStyleProject(proj2);
+		final FreeStyleProject project3 = createFreeStyleProject(proj3);
+		project1.getPublishersList().add(new BuildPipelineTrigger(proj2 + "," + proj3, null));
+		Hudson.getInstance().rebuildDependencyGraph();
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView("MyTestView", "MyTestViewTitle",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		final JSONArray results = JSONArray.fromObject(testView.triggerManualBuilds("["
+				+ "{\"id\":\"card2\",\"upstreamProjectName\":\"Proj1\",\"upstreamBuildNumber\":1,\"triggerProjectName\":\"Proj2\"},"
+				+ "{\"upstreamProjectName\":\"Proj1\",\"upstreamBuildNumber\":1,\"triggerProjectName\":\"Proj3\"},"
+				+ "{\"upstreamProjectName\":\"Proj1\",\"upstreamBuildNumber\":1,\"triggerProjectName\":\"NoSuchProject\"},"
+				+ "{\"upstreamProjectName\":\"Proj1\",\"upstreamBuildNumber\":9,\"triggerProjectName\":\"Proj3\"},"
+				+ "{\"upstreamProjectName\":\"NoSuchProject\",\"upstreamBuildNumber\":1,\"triggerProjectName\":\"Proj3\"}]"));
+		assertEquals(5, results.size());
+		assertEquals("card2", results.getJSONObject(0).getString("id"));
+		assertTrue(results.getJSONObject(0).getBoolean("scheduled"));
+		final long ticket = results.getJSONObject(0).getLong("ticket");
+		assertTrue(results.getJSONObject(1).getBoolean("scheduled"));
+		assertFalse(results.getJSONObject(2).getBoolean("scheduled"));
+		assertTrue(results.getJSONObject(2).has("error"));
+		// an upstream build or project that cannot be found is not silently left out
+		for (int i = 3; i < 5; i++) {
+			assertFalse(results.getJSONObject(i).getBoolean("scheduled"));
+			assertTrue(results.getJSONObject(i).has("error"));
+		}
+
+		waitUntilNoActivity();
+		assertEquals(1, JSONObject.fromObject(testView.getBuildStatus(proj2, ticket)).getInt("number"));
+		for (final FreeStyleProject project : new FreeStyleProject[] { project2, project3 }) {
+			final FreeStyleBuild build = project.getLastBuild();
+			assertNotNull(build);
+			final UpstreamCause cause = build.getCause(UpstreamCause.class);
+			assertEquals(proj1, cause.getUpstreamProject());
+			assertEquals(1, cause.getUpstreamBuild());
+		}
+	}
+
+	@Test
+	public void testTriggerManualBuildsAttachFreshActions() throws Exception {
+		final String proj1 = "Proj1";
+		final String proj2 = "Proj2";
+		final String proj3 = "Proj3";
+		final FreeStyleProject project1 = createFreeStyleProject(proj1);
+		final FreeStyleProject project2 = createFreeStyleProject(proj2);
+		final FreeStyleProject project3 = createFreeStyleProject(proj3);
+		final List<AbstractBuildParameters> configs = new ArrayList<AbstractBuildParameters>();
+		configs.add(new MarkerParameters());
+		project1.getPublishersList().add(new BuildPipelineTrigger(proj2 + "," + proj3, configs));
+		Hudson.getInstance().rebuildDependencyGraph();
+		buildAndAssertSuccess(project1);
+		waitUntilNoActivity();
+
+		final BuildPipelineView testView = BuildPipelineViewFactory.getBuildPipelineView("MyTestView", "MyTestViewTitle",
+				new DownstreamProjectGridBuilder(proj1), "5", false);
+		testView.triggerManualBuilds("["
+				+ "{\"upstreamProjectName\":\"Proj1\",\"upstreamBuildNumber\":1,\"triggerProjectName\":\"Proj2\"},"
+				+ "{\"upstreamProjectName\":\"Proj1\",\"upstreamBuildNumber\":1,\"triggerProjectName\":\"Proj3\"}]");
+		waitUntilNoActivity();
+
+		final MarkerAction action2 = project2.getLastBuild().getAction(MarkerAction.class);
+		final MarkerAction action3 = project3.getLastBuild().getAction(MarkerAction.class);
+		assertNotNull(action2);
+		assertNotNull(action3);
+		assertNotSame(action2, action3);
+	}
+
+	/**
+	 * Adds a new {@link MarkerAction} to every triggered build.
+	 */
+	private static final class MarkerParameters extends AbstractBuildParameters {
+		@Override
+		public Action getAction(final AbstractBuild<?, ?> build, final TaskListener listener) {
+			return new MarkerAction();
+		}
+	}
+
+	/**
+	 * An action that is not a parameter.
+	 */
+	public static final class MarkerAction extends InvisibleAction {
+	}
+
 	@Test
 	public void testOnJobRenamed() throws IOException {
 		final String bpViewName = "MyTestView";
@@ -0,0 +1,41 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CardIdsTest {
+
+    @Test
+    public void testNamesAreEncodedForTheDom() {
+        assertEquals("folder_002fmy_0020job_002d2_005f", CardIds.encode("folder/my job-2_"));
+        assertEquals("caf_00e9", CardIds.encode("caf\u00e9"));
+        assertTrue(CardIds.project("a b.c").matches("[A-Za-z0-9_]+"));
+    }
+
+    @Test
+    public void testDistinctNamesGetDistinctIds() {
+        // would collide with a plain String.hashCode()
+        assertFalse(CardIds.project("Aa").equals(CardIds.project("BB")));
+        assertFalse(CardIds.encode("a_0020b").equals(CardIds.encode("a b")));
+        assertFalse(CardIds.build("a-1", 2, 3, 0, 0).equals(CardIds.build("a", 12, 3, 0, 0)));
+    }
+
+    @Test
+    public void testBuildIdsIncludeThePosition() {
+        assertEquals("job-12-10-1-2", CardIds.build("job", 12, 10, 1, 2));
+        assertEquals("job-0-10", CardIds.build("job", 0, 10));
+    }
+
+    @Test
+    public void testEveryRenderedViewGetsItsOwnPrefix() {
+        final String prefix = CardIds.view("my view");
+        assertTrue(prefix.startsWith("my_0020view-"));
+        assertFalse(prefix.equals(CardIds.view("my view")));
+        assertTrue(CardIds.isViewPrefix(prefix));
+        assertFalse(CardIds.isViewPrefix("x\"><script>-1"));
+        assertFalse(CardIds.isViewPrefix(null));
+    }
+}
@@ -1,7 +1,16 @@
 package au.com.centrumsystems.hudson.plugin.buildpipeline;
 
+import com.google.common.collect.Lists;
+import hudson.model.FreeStyleProject;
 import org.jvnet.hudson.test.HudsonTestCase;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author Kohsuke Kawaguchi
  */
@@ -20,4 +29,84 @@ public class DownstreamProjectGridBuilderTest extends HudsonTestCase {
         assertNotSame(gridBuilder,av.getGridBuilder());
         assertEqualDataBoundBeans(gridBuilder,av.getGridBuilder());
     }
+
+    public void testBuildsArePaged() throws Exception {
+        FreeStyleProject project = createFreeStyleProject("start");
+        for (int i = 0; i < 3; i++) {
+            buildAndAssertSuccess(project);
+        }
+        BuildPipelineView v = new BuildPipelineView("foo", "Title", new DownstreamProjectGridBuilder("start"), "5", true);
+        jenkins.addView(v);
+
+        ProjectGrid grid = v.getGridBuilder().build(v);
+        List<BuildGrid> page = Lists.newArrayList(grid.builds(1, 5));
+        assertEquals(2, page.size());
+        assertEquals("#2", page.get(0).get(0, 0).getRevision());
+
+        // only the first page is laid out up front
+        BuildPipelineForm form = new BuildPipelineForm(grid, 5, 2);
+        assertEquals(2, form.getBuildGrids().size());
+        assertTrue(form.hasMoreBuildGrids());
+        assertEquals(1, form.getBuildGrids(2, 2).size());
+        assertEquals(3, form.getBuildGrids().size());
+        assertFalse(form.hasMoreBuildGrids());
+        assertTrue(form.getBuildGrids(3, 2).isEmpty());
+    }
+
+    public void testConcurrentLayoutKeepsDisplayOrder() throws Exception {
+        FreeStyleProject project = createFreeStyleProject("start");
+        for (int i = 0; i < 5; i++) {
+            buildAndAssertSuccess(project);
+        }
+        BuildPipelineView v = new BuildPipelineView("foo", "Title", new DownstreamProjectGridBuilder("start"), "5", true);
+        jenkins.addView(v);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ProjectGrid grid = ((DownstreamProjectGridBuilder) v.getGridBuilder()).build(v, executor, 60000L);
+            List<BuildGrid> page = Lists.newArrayList(grid.builds(0, 5));
+            assertEquals(5, page.size());
+            for (int i = 0; i < 5; i++) {
+                assertFalse(page.get(i).isPending());
+                assertEquals("#" + (5 - i), page.get(i).get(0, 0).getRevision());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testMissedDeadlineShowsPlaceholder() throws Exception {
+        FreeStyleProject project = createFreeStyleProject("start");
+        buildAndAssertSuccess(project);
+        BuildPipelineView v = new BuildPipelineView("foo", "Title", new DownstreamProjectGridBuilder("start"), "5", true);
+        jenkins.addView(v);
+
+        // keep the only layout thread busy so that the layout cannot meet its deadline
+        final CountDownLatch blocked = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    blocked.await();
+                    return null;
+                }
+            });
+            ProjectGrid grid = ((DownstreamProjectGridBuilder) v.getGridBuilder()).build(v, executor, 0L);
+            List<BuildGrid> page = Lists.newArrayList(grid.builds(0, 5));
+            assertEquals(1, page.size());
+            BuildGrid pending = page.get(0);
+            assertTrue(pending.isPending());
+            assertEquals("#1", pending.get(0, 0).getRevision());
+            assertTrue(pending.get(0, 0).isTruncated());
+
+            blocked.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+            assertFalse(pending.isPending());
+            assertEquals("#1", pending.get(0, 0).getRevision());
+        } finally {
+            blocked.countDown();
+            executor.shutdownNow();
+        }
+    }
 }
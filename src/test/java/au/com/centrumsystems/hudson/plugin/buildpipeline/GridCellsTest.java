@@ -0,0 +1,86 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class GridCellsTest {
+
+    /**
+     * Grid over some cells, that either uses their rightmost occupied columns or scans for them.
+     */
+    private static final class CellsGrid extends Grid<String> {
+        private final GridCells<String> cells;
+
+        private final boolean scanning;
+
+        private CellsGrid(GridCells<String> cells, boolean scanning) {
+            this.cells = cells;
+            this.scanning = scanning;
+        }
+
+        @Override
+        public int getRows() {
+            return cells.getRows();
+        }
+
+        @Override
+        public int getColumns() {
+            return cells.getColumns();
+        }
+
+        @Override
+        public String get(int row, int col) {
+            return cells.get(row, col);
+        }
+
+        @Override
+        protected int getLastColumn(int row) {
+            return scanning ? super.getLastColumn(row) : cells.getLastColumn(row);
+        }
+    }
+
+    @Test
+    public void testSetGrowsTheGrid() {
+        final GridCells<String> cells = new GridCells<String>();
+        assertEquals(0, cells.getRows());
+        cells.set(20, 30, "a");
+        assertEquals(21, cells.getRows());
+        assertEquals(31, cells.getColumns());
+        assertEquals("a", cells.get(20, 30));
+        assertNull(cells.get(20, 29));
+        assertNull(cells.get(3, 30));
+        assertNull(cells.get(21, 0));
+    }
+
+    @Test
+    public void testLastColumnFollowsRemovals() {
+        final GridCells<String> cells = new GridCells<String>();
+        cells.set(0, 1, "a");
+        cells.set(0, 4, "b");
+        assertEquals(4, cells.getLastColumn(0));
+        cells.set(0, 4, null);
+        assertEquals(1, cells.getLastColumn(0));
+        cells.set(0, 1, null);
+        assertEquals(-1, cells.getLastColumn(0));
+        assertEquals(-1, cells.getLastColumn(7));
+    }
+
+    @Test
+    public void testNextAvailableRowMatchesScanningGrid() {
+        final GridCells<String> cells = new GridCells<String>();
+        cells.set(0, 0, "a");
+        cells.set(0, 1, "b");
+        cells.set(1, 1, "c");
+        cells.set(2, 2, "d");
+        cells.set(4, 0, "e");
+        final Grid<String> grid = new CellsGrid(cells, false);
+        final Grid<String> scanning = new CellsGrid(cells, true);
+        for (int row = 0; row <= cells.getRows(); row++) {
+            for (int col = 0; col <= cells.getColumns(); col++) {
+                assertEquals(scanning.getNextAvailableRow(row, col), grid.getNextAvailableRow(row, col));
+            }
+        }
+    }
+}
@@ -215,6 +215,34 @@ public class PipelineBuildTest extends HudsonTestCase {
         assertEquals("Upstream PipelineBuild is incorrect.", pb1.toString(), pb2.getUpstreamPipelineBuild().toString());
     }
 
+    @Test
+    public void testUpstreamPipelineBuildIsResolvedAgainstOneGraph() throws Exception {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, false));
+        Hudson.getInstance().rebuildDependencyGraph();
+
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+
+        final PipelineBuild pb1 = new PipelineBuild(build1, project1, null);
+        final PipelineBuild pb2 = pb1.getDownstreamPipeline().get(0);
+        assertSame(pb1.getDependencyGraph(), pb2.getDependencyGraph());
+        assertSame(pb2.getUpstreamPipelineBuild(), pb2.getUpstreamPipelineBuild());
+
+        // the pipeline keeps showing the graph it was laid out against
+        project1.getPublishersList().clear();
+        Hudson.getInstance().rebuildDependencyGraph();
+        assertEquals(project1, pb2.getUpstreamPipelineBuild().getProject());
+        assertEquals(1, pb1.getDownstreamPipeline().size());
+
+        final PipelineBuild newPb2 = new PipelineBuild(project2.getLastBuild(), project2, build1);
+        assertNull(newPb2.getUpstreamPipelineBuild().getProject());
+    }
+
     @Test
     public void testGetUpstreamBuildResult() throws Exception {
         final String proj1 = "Proj1";
@@ -0,0 +1,47 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import net.sf.json.JSONObject;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PipelineMetricsTest {
+
+    @After
+    public void reset() {
+        PipelineMetrics.get().reset();
+    }
+
+    @Test
+    public void testOperationsAreCountedPerView() {
+        final PipelineMetrics metrics = PipelineMetrics.get();
+        metrics.record("view", "getBuildCardUpdates", metrics.start());
+        metrics.record("view", "getBuildCardUpdates", metrics.start());
+        metrics.record(null, "BuildForm.asJSON", metrics.start());
+
+        assertArrayEquals(new String[] { PipelineMetrics.CARDS, "view" }, metrics.getViewNames());
+        final JSONObject views = JSONObject.fromObject(metrics.toJSON()).getJSONObject("views");
+        final JSONObject updates = views.getJSONObject("view").getJSONObject("operations").getJSONObject("getBuildCardUpdates");
+        assertEquals(2, updates.getInt("count"));
+        assertEquals(2, updates.getJSONObject("histogram").getInt("<1"));
+        assertEquals(1, views.getJSONObject(PipelineMetrics.CARDS).getJSONObject("operations").getJSONObject("BuildForm.asJSON")
+                .getInt("count"));
+    }
+
+    @Test
+    public void testRenderRecordsPhasesAndCells() {
+        final PipelineMetrics.Render render = PipelineMetrics.get().startRender("view", "getBuildPipelineForm");
+        render.lap("projectGrid");
+        render.lap("buildGrids");
+        render.stop(12);
+
+        final JSONObject view = JSONObject.fromObject(PipelineMetrics.get().toJSON()).getJSONObject("views").getJSONObject("view");
+        assertEquals(12, view.getInt("cellsRendered"));
+        final JSONObject operations = view.getJSONObject("operations");
+        assertEquals(1, operations.getJSONObject("getBuildPipelineForm").getInt("count"));
+        assertEquals(1, operations.getJSONObject("getBuildPipelineForm.projectGrid").getInt("count"));
+        assertEquals(1, operations.getJSONObject("getBuildPipelineForm.buildGrids").getInt("count"));
+    }
+}
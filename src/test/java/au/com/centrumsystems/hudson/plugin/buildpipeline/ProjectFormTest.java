@@ -39,6 +39,39 @@ public class ProjectFormTest extends HudsonTestCase {
         assertThat(pf.getDependencies().get(0).getName(), is(project2.getName()));
     }
 
+    @Test
+    public void testDiamondIsBuiltOnce() throws IOException {
+        final FreeStyleProject project1 = createFreeStyleProject("Project1");
+        final FreeStyleProject project2 = createFreeStyleProject("Project2");
+        final FreeStyleProject project3 = createFreeStyleProject("Project3");
+        createFreeStyleProject("Project4");
+        project1.getPublishersList().add(new BuildTrigger("Project2, Project3", false));
+        project2.getPublishersList().add(new BuildTrigger("Project4", false));
+        project3.getPublishersList().add(new BuildTrigger("Project4", false));
+        hudson.rebuildDependencyGraph();
+
+        final ProjectForm pf = new ProjectForm(project1);
+        assertThat(pf.getDependencies().size(), is(2));
+        final ProjectForm fanIn = pf.getDependencies().get(0).getDependencies().get(0);
+        assertThat(fanIn.getName(), is("Project4"));
+        assertSame(fanIn, pf.getDependencies().get(1).getDependencies().get(0));
+    }
+
+    @Test
+    public void testCycleIsCut() throws IOException {
+        final FreeStyleProject project1 = createFreeStyleProject("Project1");
+        final FreeStyleProject project2 = createFreeStyleProject("Project2");
+        project1.getPublishersList().add(new BuildTrigger("Project2", false));
+        project2.getPublishersList().add(new BuildTrigger("Project1", false));
+        hudson.rebuildDependencyGraph();
+
+        final ProjectForm pf = new ProjectForm(project1);
+        final ProjectForm downstream = pf.getDependencies().get(0);
+        assertThat(downstream.getName(), is("Project2"));
+        assertTrue(downstream.getDependencies().isEmpty());
+        assertThat(downstream.getCyclicDependencies().get(0), is("Project1"));
+    }
+
     @Test
     public void testEquals() throws IOException {
         final String proj1 = "Project1";
@@ -0,0 +1,65 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ProjectRevisionsTest {
+
+    @Test
+    public void testTouchIncreasesRevision() {
+        final ProjectRevisions revisions = ProjectRevisions.get();
+        final long before = revisions.getRevision();
+        final long revision = revisions.touch("RevisionsProj1");
+        assertTrue(revision > before);
+        assertEquals(revision, revisions.getRevision("RevisionsProj1"));
+        assertEquals(0, revisions.getRevision("RevisionsNeverTouched"));
+    }
+
+    @Test
+    public void testSubscriptionCoalescesChanges() throws Exception {
+        final ProjectRevisions revisions = ProjectRevisions.get();
+        final ProjectRevisions.Subscription subscription = revisions.subscribe(Arrays.asList("RevisionsProj1", "RevisionsProj2"));
+        try {
+            revisions.touch("RevisionsProj1");
+            revisions.touch("RevisionsOther");
+            revisions.touch("RevisionsProj1");
+            revisions.touch("RevisionsProj2");
+            final Set<String> changes = subscription.await(1000);
+            assertEquals(Arrays.asList("RevisionsProj1", "RevisionsProj2"), Arrays.asList(changes.toArray()));
+
+            // nothing more queued
+            assertTrue(subscription.await(10).isEmpty());
+        } finally {
+            subscription.close();
+        }
+    }
+
+    @Test
+    public void testSubscriptionOverflow() throws Exception {
+        final ProjectRevisions revisions = ProjectRevisions.get();
+        final String[] projects = new String[100];
+        for (int i = 0; i < projects.length; i++) {
+            projects[i] = "RevisionsOverflow" + i;
+        }
+        final ProjectRevisions.Subscription subscription = revisions.subscribe(Arrays.asList(projects));
+        try {
+            for (final String project : projects) {
+                revisions.touch(project);
+            }
+            assertNull(subscription.await(1000));
+
+            // back to normal once the subscriber has resynchronised
+            revisions.touch(projects[0]);
+            assertEquals(Collections.singleton(projects[0]), subscription.await(1000));
+        } finally {
+            subscription.close();
+        }
+    }
+}
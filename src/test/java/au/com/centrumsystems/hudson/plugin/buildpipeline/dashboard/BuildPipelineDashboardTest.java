@@ -0,0 +1,66 @@
+package au.com.centrumsystems.hudson.plugin.buildpipeline.dashboard;
+
+import hudson.model.FreeStyleProject;
+import hudson.plugins.view.dashboard.Dashboard;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.jvnet.hudson.test.HudsonTestCase;
+
+import au.com.centrumsystems.hudson.plugin.buildpipeline.BuildPipelineView;
+import au.com.centrumsystems.hudson.plugin.buildpipeline.DownstreamProjectGridBuilder;
+
+import com.gargoylesoftware.htmlunit.html.HtmlElement;
+
+public class BuildPipelineDashboardTest extends HudsonTestCase {
+
+    @Test
+    public void testPortletIsPolledThroughItsProxy() throws Exception {
+        final String proj1 = "Proj1";
+        final String pipeline = "Pipeline";
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        buildAndAssertSuccess(project1);
+
+        // a real view of the same name as the portlet must not be polled by the portlet
+        hudson.addView(new BuildPipelineView(pipeline, pipeline, new DownstreamProjectGridBuilder(proj1), "5", false));
+        final Dashboard dashboard = new Dashboard("Dashboard");
+        dashboard.getTopPortlets().add(new BuildPipelineDashboard(pipeline, "", new DownstreamProjectGridBuilder(proj1), "5"));
+        hudson.addView(dashboard);
+
+        final WebClient webClient = createWebClient();
+        webClient.setJavaScriptEnabled(false);
+        final String html = webClient.goTo("view/Dashboard/").getWebResponse().getContentAsString();
+
+        assertTrue(html.contains("buildPipeline.startPolling("));
+        assertTrue(html.contains("false, null);"));
+        assertFalse(html.contains("buildCardUpdates"));
+
+        // the view itself still polls with plain GETs
+        assertTrue(webClient.goTo("view/" + pipeline + "/").getWebResponse().getContentAsString().contains("buildCardUpdates"));
+    }
+
+    @Test
+    public void testPortletsOfTheSamePipelineGetDistinctDomIds() throws Exception {
+        final String proj1 = "Proj1";
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        buildAndAssertSuccess(project1);
+
+        final Dashboard dashboard = new Dashboard("Dashboard");
+        dashboard.getTopPortlets().add(new BuildPipelineDashboard("Pipeline", "", new DownstreamProjectGridBuilder(proj1), "5"));
+        dashboard.getTopPortlets().add(new BuildPipelineDashboard("Pipeline", "", new DownstreamProjectGridBuilder(proj1), "5"));
+        hudson.addView(dashboard);
+
+        final WebClient webClient = createWebClient();
+        webClient.setJavaScriptEnabled(false);
+        final List<?> cells = webClient.goTo("view/Dashboard/").getByXPath("//td[starts-with(@id, 'build-')]");
+
+        assertEquals(2, cells.size());
+        final Set<String> ids = new HashSet<String>();
+        for (final Object cell : cells) {
+            assertTrue(ids.add(((HtmlElement) cell).getId()));
+        }
+    }
+}
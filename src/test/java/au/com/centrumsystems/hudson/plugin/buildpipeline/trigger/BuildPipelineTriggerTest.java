@@ -157,6 +157,34 @@ public class BuildPipelineTriggerTest extends HudsonTestCase {
         }
     }
 
+    @Test
+    public void testRenamesAndDeletesOnlyTouchReferringProjects() throws Exception {
+        final FreeStyleProject project1 = createFreeStyleProject("Proj1");
+        final FreeStyleProject project2 = createFreeStyleProject("Proj2");
+        final FreeStyleProject project3 = createFreeStyleProject("Proj3");
+        project1.getPublishersList().add(new BuildPipelineTrigger("Proj2", null));
+        project3.getPublishersList().add(new BuildPipelineTrigger("Proj1", null));
+        Hudson.getInstance().rebuildDependencyGraph();
+
+        assertEquals(Collections.singleton(project1), ManualTriggerEdges.get().getUpstreamProjects("proj2"));
+        assertEquals(Collections.singleton(project3), ManualTriggerEdges.get().getUpstreamProjects("Proj1"));
+
+        project2.renameTo("Proj2NEW");
+        assertEquals("Proj2NEW", project1.getPublishersList().get(BuildPipelineTrigger.class).getDownstreamProjectNames());
+        assertTrue(ManualTriggerEdges.get().getUpstreamProjects("Proj2").isEmpty());
+        assertEquals(Collections.singleton(project1), ManualTriggerEdges.get().getUpstreamProjects("Proj2NEW"));
+        ProjectSaveQueue.get().flush();
+        assertTrue(project1.getConfigFile().asString().contains("<downstreamProjectNames>Proj2NEW</downstreamProjectNames>"));
+
+        project2.delete();
+        ProjectSaveQueue.get().flush();
+        // the trigger no longer names any project
+        assertNull(project1.getPublishersList().get(BuildPipelineTrigger.class));
+        assertFalse(project1.getConfigFile().asString().contains("BuildPipelineTrigger"));
+        assertTrue(ManualTriggerEdges.get().getUpstreamProjects("Proj2NEW").isEmpty());
+        assertEquals("Proj1", project3.getPublishersList().get(BuildPipelineTrigger.class).getDownstreamProjectNames());
+    }
+
     @Test
     public void testDoCheckDownstreamProjectNames() throws IOException, InterruptedException {
         final String proj1 = "Proj1";
@@ -35,6 +35,8 @@ import hudson.model.StringParameterDefinition;
 import hudson.model.StringParameterValue;
 import hudson.tasks.BuildTrigger;
 
+import java.util.Arrays;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.jvnet.hudson.test.HudsonTestCase;
@@ -181,4 +183,24 @@ public class BuildUtilTest extends HudsonTestCase {
         params = BuildUtil.mergeParameters(baseParams, extraParams);
         assertEquals(params.getParameters().size(), 0);
     }
+
+    @Test
+    public void testMergeParametersFoldsAllActions() {
+        final ParametersAction base = new ParametersAction(new StringParameterValue("a", "1"), new StringParameterValue("b", "1"));
+        final ParametersAction empty = new ParametersAction();
+        final ParametersAction overlay1 = new ParametersAction(new StringParameterValue("c", "2"), new StringParameterValue("a", "2"));
+        final ParametersAction overlay2 = new ParametersAction(new StringParameterValue("b", "3"));
+
+        final ParametersAction params = BuildUtil.mergeParameters(Arrays.asList(base, null, empty, overlay1, overlay2));
+        assertEquals(3, params.getParameters().size());
+        assertEquals("a", params.getParameters().get(0).getName());
+        assertEquals("2", ((StringParameterValue) params.getParameter("a")).value);
+        assertEquals("3", ((StringParameterValue) params.getParameter("b")).value);
+        assertEquals("2", ((StringParameterValue) params.getParameter("c")).value);
+
+        // a single action with parameters is copied, never returned as it is
+        final ParametersAction copy = BuildUtil.mergeParameters(Arrays.asList(empty, base, null));
+        assertNotSame(base, copy);
+        assertEquals(base.getParameters(), copy.getParameters());
+    }
 }
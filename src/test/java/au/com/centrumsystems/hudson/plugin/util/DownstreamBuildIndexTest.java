@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2011, Centrum Systems Pty Ltd
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+package au.com.centrumsystems.hudson.plugin.util;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Hudson;
+import hudson.model.Run;
+import hudson.tasks.BuildTrigger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.jvnet.hudson.test.HudsonTestCase;
+
+public class DownstreamBuildIndexTest extends HudsonTestCase {
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Test
+    public void testBuildsAfterFirstLookupAreIndexed() throws Exception {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, true));
+        Hudson.getInstance().rebuildDependencyGraph();
+
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+
+        // first lookup walks the history of project2
+        assertEquals(project2.getLastBuild(), DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+
+        // the next pipeline instance is picked up by the listener
+        final FreeStyleBuild build2 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+        assertEquals(project2.getLastBuild(), DownstreamBuildIndex.get().getDownstreamBuild(project2, build2));
+        assertEquals(project2.getBuildByNumber(1), DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+    }
+
+    @Test
+    public void testMissingDownstreamBuild() throws Exception {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        buildAndAssertSuccess(project2);
+        waitUntilNoActivity();
+
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+        // asking again must not break the already exhausted index
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+    }
+
+    @Test
+    public void testDeletedDownstreamBuild() throws Exception {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, true));
+        Hudson.getInstance().rebuildDependencyGraph();
+
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+        assertNotNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+
+        project2.getLastBuild().delete();
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+    }
+
+    @Test
+    public void testDeletedDownstreamBuildUncoversAnOlderOne() throws Exception {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+        final String proj3 = "Proj3";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        final FreeStyleProject project3 = createFreeStyleProject(proj3);
+        project1.getPublishersList().add(new BuildTrigger(proj2, true));
+        Hudson.getInstance().rebuildDependencyGraph();
+
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+        // build1 caused a second build of project2
+        assertBuildStatusSuccess(project2.scheduleBuild2(0, new Cause.UpstreamCause((Run<?, ?>) build1)));
+        final FreeStyleBuild build3 = buildAndAssertSuccess(project3);
+        DownstreamBuildIndex.get().invalidate(project2);
+
+        // walk the whole history of project2 before the newest build caused by build1 is deleted
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build3));
+        assertEquals(project2.getBuildByNumber(2), DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+
+        project2.getBuildByNumber(2).delete();
+        assertEquals(project2.getBuildByNumber(1), DownstreamBuildIndex.get().getDownstreamBuild(project2, build1));
+    }
+
+    @Test
+    public void testBoundedSearch() throws Exception {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+        final String proj3 = "Proj3";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        final FreeStyleProject project3 = createFreeStyleProject(proj3);
+        project1.getPublishersList().add(new BuildTrigger(proj2, true));
+        Hudson.getInstance().rebuildDependencyGraph();
+
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+        buildAndAssertSuccess(project2);
+        buildAndAssertSuccess(project2);
+        final FreeStyleBuild build3 = buildAndAssertSuccess(project3);
+        waitUntilNoActivity();
+        DownstreamBuildIndex.get().invalidate(project2);
+
+        // the build of project2 caused by build1 is the third newest
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, new DownstreamSearch(2, false)));
+        // all builds of project2 started before build3
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build3, new DownstreamSearch(0, true)));
+
+        // a wider search resumes the walk where the bounded ones gave up
+        assertEquals(project2.getBuildByNumber(1),
+                DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, new DownstreamSearch(0, true)));
+        assertEquals(project2.getBuildByNumber(1), DownstreamBuildIndex.get().getDownstreamBuild(project2, build1,
+                new DownstreamSearch(1, false)));
+    }
+
+    @Test
+    public void testBoundedSearchCountsFromTheNewestBuild() throws Exception {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        project1.getPublishersList().add(new BuildTrigger(proj2, true));
+        Hudson.getInstance().rebuildDependencyGraph();
+
+        final FreeStyleBuild build1 = buildAndAssertSuccess(project1);
+        waitUntilNoActivity();
+        buildAndAssertSuccess(project2);
+        DownstreamBuildIndex.get().invalidate(project2);
+
+        // the build caused by build1 is the second newest, out of reach of a view searching one build deep
+        final DownstreamSearch shallow = new DownstreamSearch(1, false);
+        final DownstreamSearch deep = new DownstreamSearch(3, false);
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, shallow));
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, shallow));
+
+        // newer builds push it further back, even for a walk that started before them
+        for (int i = 0; i < 3; i++) {
+            buildAndAssertSuccess(project2);
+        }
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, deep));
+        assertNull(DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, shallow));
+        assertEquals(project2.getBuildByNumber(1),
+                DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, new DownstreamSearch(5, false)));
+        // once indexed it is found by every view
+        assertEquals(project2.getBuildByNumber(1), DownstreamBuildIndex.get().getDownstreamBuild(project2, build1, deep));
+    }
+}
@@ -0,0 +1,50 @@
+package au.com.centrumsystems.hudson.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JSONWriterTest {
+
+    @Test
+    public void testCommasAreInserted() {
+        final JSONWriter json = new JSONWriter();
+        json.object().member("a", 1).key("b").array().value("x").value(2L).value(true).object().endObject().endArray()
+                .member("c", (String) null).endObject();
+        assertEquals("{\"a\":1,\"b\":[\"x\",2,true,{}],\"c\":null}", json.toString());
+    }
+
+    @Test
+    public void testTopLevelValuesAreSeparated() {
+        final JSONWriter json = new JSONWriter();
+        json.array().object().endObject().object().member("id", 2).endObject().endArray();
+        assertEquals("[{},{\"id\":2}]", json.toString());
+    }
+
+    @Test
+    public void testStringsAreEscaped() {
+        final JSONWriter json = new JSONWriter();
+        json.value("\"quoted\" back\\slash\nline\ttab\u0001 </script> a/b \u2028");
+        assertEquals("\"\\\"quoted\\\" back\\\\slash\\nline\\ttab\\u0001 <\\/script> a/b \\u2028\"", json.toString());
+    }
+
+    @Test
+    public void testMapsAndIterablesAreWrittenRecursively() {
+        final Map<String, Object> build = new LinkedHashMap<String, Object>();
+        build.put("number", 3);
+        build.put("isBuilding", false);
+        build.put("userId", null);
+        build.put("dependencyIds", Arrays.asList("a-1", "b-2"));
+        final Map<String, Object> card = new LinkedHashMap<String, Object>();
+        card.put("id", "card");
+        card.put("build", build);
+        final JSONWriter json = new JSONWriter();
+        json.value((Object) card);
+        assertEquals("{\"id\":\"card\",\"build\":{\"number\":3,\"isBuilding\":false,\"userId\":null,\"dependencyIds\":[\"a-1\",\"b-2\"]}}",
+                json.toString());
+    }
+}
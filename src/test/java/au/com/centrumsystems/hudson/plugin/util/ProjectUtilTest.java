@@ -30,6 +30,7 @@ import hudson.model.Hudson;
 import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
 import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
 import hudson.tasks.BuildTrigger;
 
 import java.io.IOException;
@@ -100,6 +101,29 @@ public class ProjectUtilTest extends HudsonTestCase {
         assertFalse(ProjectUtil.isManualTrigger(null, null));
     }
 
+    @Test
+    public void testIsManualTriggerFollowsConfiguration() throws IOException {
+        final String proj1 = "Proj1";
+        final String proj2 = "Proj2";
+        final String proj3 = "Proj3";
+
+        final FreeStyleProject project1 = createFreeStyleProject(proj1);
+        final FreeStyleProject project2 = createFreeStyleProject(proj2);
+        final FreeStyleProject project3 = createFreeStyleProject(proj3);
+
+        // names are matched case-insensitively, across all triggers of the upstream project
+        project1.getPublishersList().add(new BuildPipelineTrigger(" proj2 ", null));
+        project1.getPublishersList().add(new BuildPipelineTrigger(proj3, null));
+        Hudson.getInstance().rebuildDependencyGraph();
+        assertTrue(ProjectUtil.isManualTrigger(project1, project2));
+        assertTrue(ProjectUtil.isManualTrigger(project1, project3));
+
+        // removing a trigger saves the project, which must be picked up
+        project1.getPublishersList().remove(project1.getPublishersList().get(BuildPipelineTrigger.class));
+        assertFalse(ProjectUtil.isManualTrigger(project1, project2));
+        assertTrue(ProjectUtil.isManualTrigger(project1, project3));
+    }
+
     @Test
     public void testHasDownstreamProjects() throws IOException {
         final String proj1 = "Proj1";
@@ -158,4 +182,18 @@ public class ProjectUtilTest extends HudsonTestCase {
 
         assertNull(ProjectUtil.getProjectParametersAction(null));
     }
+
+    @Test
+    public void testProjectParametersActionIsCachedUntilSaved() throws IOException {
+        final FreeStyleProject project1 = createFreeStyleProject("Proj1");
+        project1.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("testKey", "testValue")));
+
+        final ParametersAction params = ProjectUtil.getProjectParametersAction(project1);
+        assertSame(params, ProjectUtil.getProjectParametersAction(project1));
+
+        project1.removeProperty(ParametersDefinitionProperty.class);
+        project1.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("testKey", "newValue")));
+        assertEquals("newValue",
+                ((StringParameterValue) ProjectUtil.getProjectParametersAction(project1).getParameter("testKey")).value);
+    }
 }